@@ -0,0 +1,77 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.timux.ports;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Use this annotation together with {@link In} on a handler method that processes many messages at once.
+ * Instead of a single request, a request handler takes a {@link java.util.List} of requests and returns
+ * a {@link java.util.List} of responses, one for each request and in the same order:
+ *
+ * <pre>
+ * &#64;In
+ * &#64;Batch(maxSize = 100)
+ * private List&lt;Customer&gt; onCustomerRequests(List&lt;CustomerRequest&gt; requests) { ... }
+ * </pre>
+ *
+ * <p> The method is connected to OUT ports of type {@code Request<CustomerRequest, Customer>}. Each request
+ * is queued by the domain of the receiver like any other message, so queue depth, rejection policy, deadlines
+ * and cancellation apply to each request on its own. When a worker thread of the domain picks up a request,
+ * it also takes the requests to the same method of the same receiver that are queued right behind it, up to
+ * {@link #maxSize()} in total, and handles them by a single call of the method (and thus, depending on the
+ * {@link SyncPolicy}, a single lock acquisition). If the method fails, all requests of the batch fail.
+ *
+ * <p> Likewise, an event handler takes a {@link java.util.List} of events and returns nothing:
+ *
+ * <pre>
+ * &#64;In
+ * &#64;Batch(maxSize = 1000)
+ * private void onPriceTicks(List&lt;PriceTickEvent&gt; events) { ... }
+ * </pre>
+ *
+ * <p> The method is connected to OUT ports of type {@code Event<PriceTickEvent>}, and the events are drained
+ * from the queue of the domain in the same way as requests.
+ *
+ * <p> Messages are never held back in order to fill a batch. A batch consists of the messages that have
+ * queued up while the domain was busy, so a domain that is idle delivers a message right away, as a batch
+ * of one. Messages that are not queued at all, e.g. because the receiver is in a synchronous domain or
+ * because the sender is a thread of the receiver's own domain, are handled as batches of one as well, and
+ * so are the messages to a {@link DispatchPolicy#VIRTUAL} domain and requests that are sent while protocols
+ * are active.
+ *
+ * <p> While the method handles a batch, the deadline of the first request of the batch applies (see
+ * {@link Ports#withDeadline}). Cancelling that request with an interrupt interrupts the handling of the
+ * whole batch.
+ *
+ * @see In
+ *
+ * @since 0.6.2
+ */
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Batch {
+
+    /**
+     * The maximum number of messages that are handled at once. The default is 64.
+     */
+    int maxSize() default 64;
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Connects an OUT port to a {@link Batch} handler. Each message is dispatched as a task of its own, so the
+ * domain of the receiver treats it like any other message. The worker that runs such a task also takes the
+ * tasks for the same handler and receiver that are queued right behind it (see {@link Executor}), and the
+ * handler processes all of them with a single call (see {@link Task}). Messages that are not queued, e.g.
+ * because the receiver is in a synchronous domain, are handled as batches of one.
+ */
+class BatchPort<I, O> implements Consumer<I>, Function<I, O> {
+
+    private final Method handlerMethod;
+    private final int maxSize;
+
+    // Exactly one of them is set.
+    private final Function<List<I>, List<O>> requestHandler;
+    private final Consumer<List<I>> eventHandler;
+
+    private BatchPort(Method handlerMethod, Function<List<I>, List<O>> requestHandler, Consumer<List<I>> eventHandler) {
+        int maxSize = handlerMethod.getAnnotation(Batch.class).maxSize();
+
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("max. batch size must be at least 1: " + maxSize);
+        }
+
+        this.handlerMethod = handlerMethod;
+        this.maxSize = maxSize;
+        this.requestHandler = requestHandler;
+        this.eventHandler = eventHandler;
+    }
+
+    static <I, O> BatchPort<I, O> forRequests(Method handlerMethod, Function<List<I>, List<O>> requestHandler) {
+        return new BatchPort<>(handlerMethod, requestHandler, null);
+    }
+
+    static <T> BatchPort<T, Void> forEvents(Method handlerMethod, Consumer<List<T>> eventHandler) {
+        return new BatchPort<>(handlerMethod, null, eventHandler);
+    }
+
+    int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Returns true if both ports lead to the same handler method, so that their messages to the same receiver
+     * can be handled in the same batch.
+     */
+    boolean hasSameHandlerAs(BatchPort<?, ?> other) {
+        return other == this || (other != null && other.handlerMethod.equals(handlerMethod));
+    }
+
+    @Override
+    public void accept(I payload) {
+        handle(Collections.singletonList(payload));
+    }
+
+    @Override
+    public O apply(I payload) {
+        return handle(Collections.singletonList(payload)).get(0);
+    }
+
+    /**
+     * Hands the provided messages to the handler. Returns the responses, one for each request and in the same
+     * order, or null in case of events.
+     */
+    List<O> handle(List<I> payloads) {
+        if (eventHandler != null) {
+            eventHandler.accept(payloads);
+            return null;
+        }
+
+        List<O> responses = requestHandler.apply(payloads);
+        int numberOfResponses = responses != null ? responses.size() : 0;
+
+        if (numberOfResponses != payloads.size()) {
+            throw new IllegalStateException("batch handler returned " + numberOfResponses
+                    + " responses for " + payloads.size() + " requests");
+        }
+
+        return responses;
+    }
+}
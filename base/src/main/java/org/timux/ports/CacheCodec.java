@@ -0,0 +1,49 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.timux.ports;
+
+import java.nio.file.Path;
+
+/**
+ * Converts the requests and responses of {@link Pure} request types to bytes and back, so that the
+ * responses can be stored outside of the Java heap and cache snapshots can be written to files.
+ *
+ * <p> Implementations must be thread-safe and must have a public no-argument constructor. The default
+ * codec uses Java serialization, i.e. it requires the objects to be {@link java.io.Serializable}.
+ *
+ * @see Pure#codec()
+ * @see Ports#saveCaches(Path, String, CacheCodec)
+ *
+ * @since 0.6.2
+ */
+public interface CacheCodec {
+
+    /**
+     * Converts the given object to bytes.
+     *
+     * @throws Exception If the object cannot be encoded. In this case, it is not stored.
+     */
+    byte[] encode(Object object) throws Exception;
+
+    /**
+     * Converts the given bytes back to an object.
+     *
+     * @throws Exception If the bytes cannot be decoded. In this case, the stored object is discarded.
+     */
+    Object decode(byte[] bytes) throws Exception;
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.timux.ports;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The statistics counters of the caches of a request type.
+ */
+class CacheCounters implements CacheStatisticsMXBean {
+
+    private final Class<?> requestType;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder gcCleared = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadTimeNanos = new LongAdder();
+
+    CacheCounters(Class<?> requestType) {
+        this.requestType = requestType;
+    }
+
+    void recordHit() {
+        hits.increment();
+    }
+
+    void recordMiss() {
+        misses.increment();
+    }
+
+    void recordEviction() {
+        evictions.increment();
+    }
+
+    void recordGcCleared() {
+        gcCleared.increment();
+    }
+
+    void recordInvalidations(long count) {
+        invalidations.add(count);
+    }
+
+    void recordLoad(long nanos) {
+        loads.increment();
+        loadTimeNanos.add(nanos);
+    }
+
+    CacheStatistics snapshot() {
+        return new CacheStatistics(
+                requestType,
+                hits.sum(),
+                misses.sum(),
+                evictions.sum(),
+                gcCleared.sum(),
+                invalidations.sum(),
+                loads.sum(),
+                loadTimeNanos.sum());
+    }
+
+    @Override
+    public String getRequestType() {
+        return requestType.getName();
+    }
+
+    @Override
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    @Override
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    @Override
+    public double getHitRate() {
+        return snapshot().getHitRate();
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    @Override
+    public long getGcClearedCount() {
+        return gcCleared.sum();
+    }
+
+    @Override
+    public long getInvalidationCount() {
+        return invalidations.sum();
+    }
+
+    @Override
+    public long getLoadCount() {
+        return loads.sum();
+    }
+
+    @Override
+    public long getTotalLoadTimeNanos() {
+        return loadTimeNanos.sum();
+    }
+}
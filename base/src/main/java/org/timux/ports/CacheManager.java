@@ -16,70 +16,502 @@
 
 package org.timux.ports;
 
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
 import java.lang.ref.WeakReference;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 class CacheManager {
 
-    private static final Map<Class<?>, ArrayList<WeakReference<Request<?, ?>>>> cachesToBeCleared = new HashMap<>();
+    /**
+     * An entry of the invalidation index. If there is a key extractor, only the entry with the extracted
+     * key is removed from the cache, otherwise the entire cache is cleared.
+     */
+    private static class Invalidation {
 
-    synchronized static void registerRequestPort(Request<?, ?> requestPort, Pure pureAnno) {
-        Class<?>[] clearCacheOn = pureAnno.clearCacheOn();
+        final WeakReference<RequestCache<?, ?>> cacheRef;
+        final Function<Object, ?> keyExtractor;
 
-        for (Class<?> messageType : clearCacheOn) {
-            ArrayList<WeakReference<Request<?, ?>>> requestPorts = cachesToBeCleared.get(messageType);
+        Invalidation(WeakReference<RequestCache<?, ?>> cacheRef, Function<Object, ?> keyExtractor) {
+            this.cacheRef = cacheRef;
+            this.keyExtractor = keyExtractor;
+        }
+    }
+
+    private static class KeyMapping {
+
+        final Class<?> messageType;
+        final Class<?> requestType;
+        final Function<Object, ?> keyExtractor;
+
+        KeyMapping(Class<?> messageType, Class<?> requestType, Function<Object, ?> keyExtractor) {
+            this.messageType = messageType;
+            this.requestType = requestType;
+            this.keyExtractor = keyExtractor;
+        }
+    }
+
+    private static class SnapshotSettings {
+
+        final Path file;
+        final String version;
+        final CacheCodec codec;
+
+        SnapshotSettings(Path file, String version, CacheCodec codec) {
+            this.file = file;
+            this.version = version;
+            this.codec = codec;
+        }
+    }
+
+    private static final ResponseCacheProvider DEFAULT_CACHE_PROVIDER = spec -> spec.getOffHeapBytes() > 0
+            ? new OffHeapResponseCache(spec)
+            : new StripedResponseCache<>(spec);
+
+    /*
+     * Maps each message type to the caches that are invalidated when a message of that type is sent.
+     * The map and its arrays are never modified after they have been published, so that sending a message
+     * requires neither a lock nor a copy. Only replaced while holding the CacheManager monitor.
+     */
+    private static volatile Map<Class<?>, Invalidation[]> invalidationIndex = Collections.emptyMap();
+
+    // The following fields are only accessed while holding the CacheManager monitor.
+    private static final Map<Class<?>, List<WeakReference<RequestCache<?, ?>>>> cachesByRequestType = new HashMap<>();
+    private static final List<KeyMapping> keyMappings = new ArrayList<>();
+
+    private static final Map<Class<?>, CacheCounters> counters = new ConcurrentHashMap<>();
+
+    private static final Map<Class<?>, ConcurrentWeakHashMap<Object, RequestCache<?, ?>>> sharedCaches =
+            new ConcurrentHashMap<>();
+
+    private static volatile ResponseCacheProvider cacheProvider = DEFAULT_CACHE_PROVIDER;
+
+    /*
+     * Holds the contents of the last restored snapshot for each request type. New caches are initialized
+     * from these caches, which are registered like all others, so that they are invalidated and cleared
+     * like all others.
+     */
+    private static final Map<Class<?>, RequestCache<?, ?>> restoredCaches = new ConcurrentHashMap<>();
+
+    // The settings that are used in order to write a snapshot on shutdown, or null.
+    private static volatile SnapshotSettings shutdownSnapshotSettings = null;
+    private static boolean isShutdownHookRegistered = false;
 
-            if (requestPorts == null) {
-                requestPorts = new ArrayList<>();
-                cachesToBeCleared.put(messageType, requestPorts);
+    /*
+     * Sends the refresh requests of caches with refresh-ahead, so that the senders never have to wait for
+     * them, not even if the receiver is in a synchronous domain.
+     */
+    private static final ThreadPoolExecutor refreshExecutor = createRefreshExecutor();
+
+    private static boolean isJmxAvailable = true;
+
+    private static ThreadPoolExecutor createRefreshExecutor() {
+        AtomicInteger nextThreadId = new AtomicInteger();
+        int numberOfThreads = Runtime.getRuntime().availableProcessors();
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                numberOfThreads,
+                numberOfThreads,
+                20, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "ports-cache-refresh-" + nextThreadId.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        executor.allowCoreThreadTimeOut(true);
+
+        return executor;
+    }
+
+    static void submitRefresh(Runnable refresh) {
+        refreshExecutor.execute(refresh);
+    }
+
+    static <I, O> RequestCache<I, O> createCache(Class<?> requestType, Pure pureAnno) {
+        RequestCache<I, O> cache = newCache(requestType, pureAnno);
+        RequestCache<?, ?> restoredCache = restoredCaches.get(requestType);
+
+        if (restoredCache != null) {
+            restoredCache.forEachResponse(cache::restore);
+        }
+
+        return cache;
+    }
+
+    private static <I, O> RequestCache<I, O> newCache(Class<?> requestType, Pure pureAnno) {
+        CacheCounters requestTypeCounters = counters.computeIfAbsent(requestType, CacheManager::createCounters);
+        RequestCache<I, O> cache = new RequestCache<>(CacheSpec.of(requestType, pureAnno, requestTypeCounters), cacheProvider);
+        registerCache(cache, pureAnno);
+        return cache;
+    }
+
+    /**
+     * Returns the cache that is shared by all OUT ports of the given request type that are connected
+     * to the given receiver.
+     */
+    @SuppressWarnings("unchecked")
+    static <I, O> RequestCache<I, O> getSharedCache(Class<?> requestType, Object receiver, Pure pureAnno) {
+        return (RequestCache<I, O>) sharedCaches
+                .computeIfAbsent(requestType, t -> new ConcurrentWeakHashMap<>())
+                .computeIfAbsent(receiver, r -> createCache(requestType, pureAnno));
+    }
+
+    private static CacheCounters createCounters(Class<?> requestType) {
+        CacheCounters newCounters = new CacheCounters(requestType);
+        registerMBean(newCounters);
+        return newCounters;
+    }
+
+    static CacheStatistics getStatistics(Class<?> requestType) {
+        CacheCounters requestTypeCounters = counters.get(requestType);
+
+        return requestTypeCounters != null
+                ? requestTypeCounters.snapshot()
+                : new CacheStatistics(requestType, 0, 0, 0, 0, 0, 0, 0);
+    }
+
+    static Map<Class<?>, CacheStatistics> getStatistics() {
+        Map<Class<?>, CacheStatistics> statistics = new HashMap<>();
+        counters.forEach((requestType, requestTypeCounters) -> statistics.put(requestType, requestTypeCounters.snapshot()));
+        return statistics;
+    }
+
+    private static synchronized void registerMBean(CacheCounters requestTypeCounters) {
+        if (!isJmxAvailable) {
+            return;
+        }
+
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = getObjectName(requestTypeCounters);
+
+            if (!server.isRegistered(name)) {
+                server.registerMBean(requestTypeCounters, name);
             }
+        } catch (Exception | LinkageError e) {
+            isJmxAvailable = false;
+            Ports.printWarning("cache statistics are not available via JMX: " + e.getMessage());
+        }
+    }
+
+    private static synchronized void unregisterMBeans() {
+        if (!isJmxAvailable) {
+            return;
+        }
 
-            for (int j = 0; j < requestPorts.size(); ) {
-                if (requestPorts.get(j).get() == null) {
-                    requestPorts.remove(j);
-                } else {
-                    j++;
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+            for (CacheCounters requestTypeCounters : counters.values()) {
+                ObjectName name = getObjectName(requestTypeCounters);
+
+                if (server.isRegistered(name)) {
+                    server.unregisterMBean(name);
                 }
             }
+        } catch (Exception e) {
+            Ports.printWarning("cannot unregister cache statistics MXBeans: " + e.getMessage());
+        }
+    }
+
+    private static ObjectName getObjectName(CacheCounters requestTypeCounters) throws Exception {
+        return new ObjectName("org.timux.ports:type=CacheStatistics,name=" + requestTypeCounters.getRequestType());
+    }
+
+    static void setCacheProvider(ResponseCacheProvider provider) {
+        cacheProvider = provider != null ? provider : DEFAULT_CACHE_PROVIDER;
+    }
+
+    private synchronized static void registerCache(RequestCache<?, ?> cache, Pure pureAnno) {
+        WeakReference<RequestCache<?, ?>> cacheRef = new WeakReference<>(cache);
+        Class<?> requestType = cache.getRequestType();
+
+        List<WeakReference<RequestCache<?, ?>>> caches =
+                cachesByRequestType.computeIfAbsent(requestType, t -> new ArrayList<>());
+
+        caches.removeIf(ref -> ref.get() == null);
+        caches.add(cacheRef);
+
+        Map<Class<?>, Invalidation[]> newIndex = new HashMap<>(invalidationIndex);
+
+        for (Class<?> messageType : pureAnno.clearCacheOn()) {
+            addInvalidation(newIndex, messageType, new Invalidation(cacheRef, null));
+        }
+
+        for (KeyMapping mapping : keyMappings) {
+            if (mapping.requestType == requestType) {
+                addInvalidation(newIndex, mapping.messageType, new Invalidation(cacheRef, mapping.keyExtractor));
+            }
+        }
+
+        invalidationIndex = newIndex;
+    }
+
+    @SuppressWarnings("unchecked")
+    synchronized static <M, R> void registerKeyMapping(
+            Class<M> messageType, Class<R> requestType, Function<? super M, ? extends R> keyExtractor)
+    {
+        KeyMapping mapping = new KeyMapping(messageType, requestType, (Function<Object, ?>) keyExtractor);
+        keyMappings.add(mapping);
+
+        List<WeakReference<RequestCache<?, ?>>> caches = cachesByRequestType.get(requestType);
+
+        if (caches == null) {
+            return;
+        }
+
+        Map<Class<?>, Invalidation[]> newIndex = new HashMap<>(invalidationIndex);
+
+        for (WeakReference<RequestCache<?, ?>> cacheRef : caches) {
+            if (cacheRef.get() != null) {
+                addInvalidation(newIndex, messageType, new Invalidation(cacheRef, mapping.keyExtractor));
+            }
+        }
 
-            requestPorts.add(new WeakReference<>(requestPort));
+        invalidationIndex = newIndex;
+    }
+
+    private static void addInvalidation(Map<Class<?>, Invalidation[]> index, Class<?> messageType, Invalidation invalidation) {
+        Invalidation[] oldInvalidations = index.get(messageType);
+        List<Invalidation> invalidations = new ArrayList<>();
+
+        if (oldInvalidations != null) {
+            for (Invalidation oldInvalidation : oldInvalidations) {
+                if (oldInvalidation.cacheRef.get() != null) {
+                    invalidations.add(oldInvalidation);
+                }
+            }
         }
+
+        invalidations.add(invalidation);
+        index.put(messageType, invalidations.toArray(new Invalidation[0]));
     }
 
-    synchronized static void onMessageSent(Class<?> messageType) {
-        ArrayList<WeakReference<Request<?, ?>>> requestPorts = cachesToBeCleared.get(messageType);
+    static void onMessageSent(Object message) {
+        Map<Class<?>, Invalidation[]> index = invalidationIndex;
+
+        if (index.isEmpty()) {
+            return;
+        }
+
+        Invalidation[] invalidations = index.get(message.getClass());
 
-        if (requestPorts == null) {
+        if (invalidations == null) {
             return;
         }
 
-        for (WeakReference<Request<?, ?>> ref : requestPorts) {
-            Request<?, ?> requestPort = ref.get();
+        for (Invalidation invalidation : invalidations) {
+            RequestCache<?, ?> cache = invalidation.cacheRef.get();
 
-            if (requestPort == null) {
+            if (cache == null) {
                 continue;
             }
 
-            requestPort.clearCache();
+            if (invalidation.keyExtractor == null) {
+                cache.invalidate();
+                continue;
+            }
+
+            Object key;
+
+            try {
+                key = invalidation.keyExtractor.apply(message);
+            } catch (Exception e) {
+                Ports.printError("cache key extraction from " + message.getClass().getName()
+                        + " terminated with an exception, clearing the entire cache:");
+                e.printStackTrace();
+                cache.invalidate();
+                continue;
+            }
+
+            if (key != null) {
+                cache.invalidate(key);
+            }
         }
     }
 
-    synchronized static void clear() {
-        cachesToBeCleared.forEach((messageType, requestPorts) -> {
-            requestPorts.forEach(ref -> {
-                Request<?, ?> requestPort = ref.get();
+    /**
+     * Writes the contents of all caches to the given file. If there are several caches of the same request
+     * type, their contents are merged.
+     *
+     * @return The number of entries written.
+     */
+    static int saveSnapshot(Path file, String version, CacheCodec codec) {
+        List<RequestCache<?, ?>> caches = new ArrayList<>();
+
+        synchronized (CacheManager.class) {
+            cachesByRequestType.forEach((requestType, cacheRefs) -> {
+                for (WeakReference<RequestCache<?, ?>> ref : cacheRefs) {
+                    RequestCache<?, ?> cache = ref.get();
 
-                if (requestPort != null) {
-                    requestPort.clearCache();
+                    if (cache != null) {
+                        caches.add(cache);
+                    }
                 }
             });
+        }
+
+        // The caches are iterated outside of the monitor because that may take a while.
+        Map<Class<?>, Map<Object, CacheSnapshot.Entry>> contents = new LinkedHashMap<>();
+
+        for (RequestCache<?, ?> cache : caches) {
+            Map<Object, CacheSnapshot.Entry> entries =
+                    contents.computeIfAbsent(cache.getRequestType(), t -> new LinkedHashMap<>());
+
+            cache.forEachResponse((key, response, ageNanos) ->
+                    entries.put(key, new CacheSnapshot.Entry(response, ageNanos)));
+        }
+
+        contents.values().removeIf(Map::isEmpty);
+
+        try {
+            return CacheSnapshot.write(file, version, codec, contents);
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot write cache snapshot to " + file, e);
+        }
+    }
+
+    /**
+     * Restores the contents of the given file, if it exists and has been written with the given version key.
+     * The responses are put into all existing caches of the respective request types, unless they already
+     * contain responses to the same requests, and into all caches created afterwards. The responses keep
+     * their ages, so that they do not live longer than without the snapshot.
+     *
+     * @return The number of entries read.
+     */
+    @SuppressWarnings("unchecked")
+    static int loadSnapshot(Path file, String version, CacheCodec codec) {
+        Map<Class<?>, Map<Object, CacheSnapshot.Entry>> contents;
+
+        try {
+            contents = CacheSnapshot.read(file, version, codec);
+        } catch (NoSuchFileException e) {
+            return 0;
+        } catch (EOFException e) {
+            Ports.printWarning("cache snapshot " + file + " is incomplete, it is discarded");
+            return 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot read cache snapshot from " + file, e);
+        }
+
+        if (contents == null) {
+            // The snapshot is incompatible.
+            return 0;
+        }
+
+        int numberOfEntries = 0;
+
+        for (Map.Entry<Class<?>, Map<Object, CacheSnapshot.Entry>> requestTypeContents : contents.entrySet()) {
+            Class<?> requestType = requestTypeContents.getKey();
+            Map<Object, CacheSnapshot.Entry> entries = requestTypeContents.getValue();
+
+            RequestCache<Object, Object> restoredCache = newCache(requestType, requestType.getAnnotation(Pure.class));
+            entries.forEach((key, entry) -> restoredCache.restore(key, entry.response, entry.ageNanos));
+
+            RequestCache<?, ?> oldRestoredCache = restoredCaches.put(requestType, restoredCache);
+
+            if (oldRestoredCache != null) {
+                oldRestoredCache.clear();
+            }
+
+            for (RequestCache<?, ?> cache : getCaches(requestType)) {
+                if (cache != restoredCache) {
+                    entries.forEach((key, entry) -> cache.restore(key, entry.response, entry.ageNanos));
+                }
+            }
+
+            numberOfEntries += entries.size();
+        }
+
+        return numberOfEntries;
+    }
+
+    private synchronized static List<RequestCache<?, ?>> getCaches(Class<?> requestType) {
+        List<RequestCache<?, ?>> caches = new ArrayList<>();
+
+        for (WeakReference<RequestCache<?, ?>> ref : cachesByRequestType.getOrDefault(requestType, Collections.emptyList())) {
+            RequestCache<?, ?> cache = ref.get();
+
+            if (cache != null) {
+                caches.add(cache);
+            }
+        }
+
+        return caches;
+    }
+
+    /**
+     * Restores the given snapshot and arranges for the caches to be written to it on shutdown.
+     */
+    static int persistSnapshot(Path file, String version, CacheCodec codec) {
+        synchronized (CacheManager.class) {
+            shutdownSnapshotSettings = new SnapshotSettings(file, version, codec);
+
+            if (!isShutdownHookRegistered) {
+                Runtime.getRuntime().addShutdownHook(new Thread(CacheManager::saveShutdownSnapshot, "ports-cache-snapshot"));
+                isShutdownHookRegistered = true;
+            }
+        }
+
+        return loadSnapshot(file, version, codec);
+    }
+
+    private static void saveShutdownSnapshot() {
+        SnapshotSettings settings = shutdownSnapshotSettings;
+
+        if (settings == null) {
+            return;
+        }
+
+        try {
+            saveSnapshot(settings.file, settings.version, settings.codec);
+        } catch (RuntimeException e) {
+            Ports.printError("cannot write cache snapshot to " + settings.file + ":");
+            e.printStackTrace();
+        }
+    }
+
+    synchronized static void clear() {
+        cachesByRequestType.forEach((requestType, caches) -> {
+            for (WeakReference<RequestCache<?, ?>> ref : caches) {
+                RequestCache<?, ?> cache = ref.get();
+
+                if (cache != null) {
+                    cache.clear();
+                }
+            }
         });
     }
 
     synchronized static void reset() {
         clear();
-        cachesToBeCleared.clear();
+        invalidationIndex = Collections.emptyMap();
+        cachesByRequestType.clear();
+        keyMappings.clear();
+        sharedCaches.clear();
+        restoredCaches.clear();
+        shutdownSnapshotSettings = null;
+        cacheProvider = DEFAULT_CACHE_PROVIDER;
+        unregisterMBeans();
+        counters.clear();
     }
 }
@@ -0,0 +1,279 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.timux.ports;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads and writes cache snapshots. A snapshot file consists of a header with the cache version
+ * key and the time of writing, followed by the entries of each request type, whose requests and
+ * responses are encoded by a {@link CacheCodec}:
+ *
+ * <pre>
+ *   magic number, format version, cache version key, time of writing in milliseconds since the epoch
+ *   number of request types
+ *   for each request type: class name, number of entries,
+ *       for each entry: age in nanoseconds, length and bytes of the request, length and bytes of the response
+ * </pre>
+ *
+ * The request length is -1 for stateless request types, whose requests are not stored.
+ *
+ * <p> Snapshot files must come from a trusted source, since the requests and responses are decoded
+ * into arbitrary objects.
+ */
+class CacheSnapshot {
+
+    /**
+     * A response together with its age.
+     */
+    static class Entry {
+
+        final Object response;
+        final long ageNanos;
+
+        Entry(Object response, long ageNanos) {
+            this.response = response;
+            this.ageNanos = ageNanos;
+        }
+    }
+
+    private static final int MAGIC_NUMBER = 0x506f5274;
+    private static final int FORMAT_VERSION = 2;
+
+    private static final int NO_REQUEST = -1;
+
+    private CacheSnapshot() {
+        // Utility class.
+    }
+
+    /**
+     * Writes the given contents to the given file, which is replaced atomically if possible. The
+     * keys of stateless request types must be the request types themselves.
+     *
+     * @return The number of entries written.
+     */
+    static int write(Path file, String version, CacheCodec codec, Map<Class<?>, Map<Object, Entry>> contents)
+            throws IOException
+    {
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        int numberOfEntries = 0;
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+            out.writeInt(MAGIC_NUMBER);
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(version);
+            out.writeLong(System.currentTimeMillis());
+            out.writeInt(contents.size());
+
+            for (Map.Entry<Class<?>, Map<Object, Entry>> requestTypeContents : contents.entrySet()) {
+                Class<?> requestType = requestTypeContents.getKey();
+                Map<Object, byte[]> encodedRequests = new LinkedHashMap<>();
+                Map<Object, byte[]> encodedResponses = new LinkedHashMap<>();
+
+                encode(codec, requestType, requestTypeContents.getValue(), encodedRequests, encodedResponses);
+
+                out.writeUTF(requestType.getName());
+                out.writeInt(encodedResponses.size());
+
+                for (Map.Entry<Object, byte[]> e : encodedResponses.entrySet()) {
+                    out.writeLong(requestTypeContents.getValue().get(e.getKey()).ageNanos);
+                    writeBytes(out, encodedRequests.get(e.getKey()));
+                    writeBytes(out, e.getValue());
+                }
+
+                numberOfEntries += encodedResponses.size();
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+
+        try {
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        return numberOfEntries;
+    }
+
+    private static void encode(
+            CacheCodec codec,
+            Class<?> requestType,
+            Map<Object, Entry> entries,
+            Map<Object, byte[]> encodedRequests,
+            Map<Object, byte[]> encodedResponses)
+    {
+        Exception firstException = null;
+
+        for (Map.Entry<Object, Entry> e : entries.entrySet()) {
+            try {
+                byte[] request = e.getKey() == requestType ? null : codec.encode(e.getKey());
+                byte[] response = codec.encode(e.getValue().response);
+
+                encodedRequests.put(e.getKey(), request);
+                encodedResponses.put(e.getKey(), response);
+            } catch (Exception ex) {
+                if (firstException == null) {
+                    firstException = ex;
+                }
+            }
+        }
+
+        if (firstException != null) {
+            Ports.printWarning("cannot encode " + (entries.size() - encodedResponses.size()) + " cached responses of "
+                    + requestType.getName() + ", they are not contained in the snapshot (" + firstException + ")");
+        }
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        if (bytes == null) {
+            out.writeInt(NO_REQUEST);
+            return;
+        }
+
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads the contents of the given file. Request types that are unknown or not cacheable anymore
+     * are skipped, as well as entries that cannot be decoded and entries that have expired in the
+     * meantime. The ages of the entries include the time since the file has been written. The keys of
+     * stateless request types are the request types themselves.
+     *
+     * @return The contents, or null if the file has been written with a different version key or
+     * in an unknown format.
+     */
+    static Map<Class<?>, Map<Object, Entry>> read(Path file, String version, CacheCodec codec) throws IOException {
+        Map<Class<?>, Map<Object, Entry>> contents = new LinkedHashMap<>();
+        long fileSize = Files.size(file);
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC_NUMBER || in.readInt() != FORMAT_VERSION || !in.readUTF().equals(version)) {
+                return null;
+            }
+
+            // The clock may have been set back in the meantime.
+            long timeSinceWritingNanos =
+                    TimeUnit.MILLISECONDS.toNanos(Math.max(0L, System.currentTimeMillis() - in.readLong()));
+
+            int numberOfRequestTypes = in.readInt();
+
+            for (int i = 0; i < numberOfRequestTypes; i++) {
+                String className = in.readUTF();
+                int numberOfEntries = in.readInt();
+                Class<?> requestType = findCacheableRequestType(className);
+                long ttlNanos = requestType != null ? getTtlNanos(requestType) : 0L;
+                Map<Object, Entry> entries = new LinkedHashMap<>();
+                Exception firstException = null;
+                int numberOfFailures = 0;
+
+                for (int k = 0; k < numberOfEntries; k++) {
+                    long ageNanos = addSaturated(Math.max(0L, in.readLong()), timeSinceWritingNanos);
+                    byte[] request = readBytes(in, fileSize);
+                    byte[] response = readBytes(in, fileSize);
+
+                    if (requestType == null || (ttlNanos > 0 && ageNanos >= ttlNanos)) {
+                        continue;
+                    }
+
+                    try {
+                        entries.put(
+                                request == null ? requestType : codec.decode(request),
+                                new Entry(codec.decode(response), ageNanos));
+                    } catch (Exception e) {
+                        numberOfFailures++;
+
+                        if (firstException == null) {
+                            firstException = e;
+                        }
+                    }
+                }
+
+                if (firstException != null) {
+                    Ports.printWarning("cannot decode " + numberOfFailures + " cached responses of " + className
+                            + ", they are discarded (" + firstException + ")");
+                }
+
+                if (requestType != null && !entries.isEmpty()) {
+                    contents.put(requestType, entries);
+                }
+            }
+        }
+
+        return contents;
+    }
+
+    // Both summands must not be negative.
+    private static long addSaturated(long a, long b) {
+        long sum = a + b;
+        return sum < 0 ? Long.MAX_VALUE : sum;
+    }
+
+    private static long getTtlNanos(Class<?> requestType) {
+        Pure pureAnno = requestType.getAnnotation(Pure.class);
+        return pureAnno.ttlUnit().toNanos(pureAnno.ttl());
+    }
+
+    /**
+     * Reads a length and as many bytes. The length cannot exceed the size of the file, so that a corrupt
+     * file does not cause huge allocations.
+     */
+    private static byte[] readBytes(DataInputStream in, long fileSize) throws IOException {
+        int length = in.readInt();
+
+        if (length == NO_REQUEST) {
+            return null;
+        }
+
+        if (length < 0 || length > fileSize) {
+            throw new IOException("invalid cache snapshot entry length: " + length);
+        }
+
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    private static Class<?> findCacheableRequestType(String className) {
+        Class<?> requestType;
+
+        try {
+            ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+            requestType = Class.forName(className, false, classLoader != null ? classLoader : CacheSnapshot.class.getClassLoader());
+        } catch (ClassNotFoundException | LinkageError e) {
+            return null;
+        }
+
+        Pure pureAnno = requestType.getAnnotation(Pure.class);
+
+        return pureAnno != null && pureAnno.cache() ? requestType : null;
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.timux.ports;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The settings of the cache of a {@link Pure} request, as passed to a {@link ResponseCacheProvider}.
+ * Cache implementations also use it in order to report evictions to the {@link CacheStatistics}.
+ *
+ * @see Pure
+ *
+ * @since 0.6.2
+ */
+public final class CacheSpec {
+
+    private final Class<?> requestType;
+    private final int capacity;
+    private final long ttlNanos;
+    private final long refreshAfterNanos;
+    private final EvictionPolicy evictionPolicy;
+    private final long offHeapBytes;
+    private final CacheCodec codec;
+    private final CacheCounters counters;
+
+    CacheSpec(Class<?> requestType, int capacity, long ttlNanos, EvictionPolicy evictionPolicy) {
+        this(requestType, capacity, ttlNanos, 0L, evictionPolicy, 0L, SerializationCodec.INSTANCE,
+                new CacheCounters(requestType));
+    }
+
+    CacheSpec(
+            Class<?> requestType,
+            int capacity,
+            long ttlNanos,
+            long refreshAfterNanos,
+            EvictionPolicy evictionPolicy,
+            long offHeapBytes,
+            CacheCodec codec,
+            CacheCounters counters)
+    {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("cache capacity of " + requestType.getName() + " must be at least 1");
+        }
+
+        if (ttlNanos < 0) {
+            throw new IllegalArgumentException("cache TTL of " + requestType.getName() + " must not be negative");
+        }
+
+        if (refreshAfterNanos < 0 || (ttlNanos > 0 && refreshAfterNanos >= ttlNanos)) {
+            throw new IllegalArgumentException("cache refresh interval of " + requestType.getName()
+                    + " must not be negative and must be shorter than the TTL");
+        }
+
+        if (offHeapBytes < 0) {
+            throw new IllegalArgumentException("off-heap cache size of " + requestType.getName() + " must not be negative");
+        }
+
+        this.requestType = requestType;
+        this.capacity = capacity;
+        this.ttlNanos = ttlNanos;
+        this.refreshAfterNanos = refreshAfterNanos;
+        this.evictionPolicy = evictionPolicy;
+        this.offHeapBytes = offHeapBytes;
+        this.codec = codec;
+        this.counters = counters;
+    }
+
+    static CacheSpec of(Class<?> requestType, Pure pureAnno, CacheCounters counters) {
+        return new CacheSpec(
+                requestType,
+                pureAnno.capacity(),
+                pureAnno.ttlUnit().toNanos(pureAnno.ttl()),
+                pureAnno.ttlUnit().toNanos(pureAnno.refreshAfter()),
+                pureAnno.eviction(),
+                pureAnno.offHeapBytes(),
+                createCodec(requestType, pureAnno.codec()),
+                counters);
+    }
+
+    private static CacheCodec createCodec(Class<?> requestType, Class<? extends CacheCodec> codecClass) {
+        if (codecClass == CacheCodec.class) {
+            return SerializationCodec.INSTANCE;
+        }
+
+        try {
+            return codecClass.getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException("cannot instantiate cache codec " + codecClass.getName()
+                    + " of " + requestType.getName(), e);
+        }
+    }
+
+    /**
+     * Returns the request type whose responses are cached.
+     */
+    public Class<?> getRequestType() {
+        return requestType;
+    }
+
+    /**
+     * Returns the maximum number of responses to be cached.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the time after which a cached response expires, or 0 if cached responses do not expire.
+     */
+    public long getTtl(TimeUnit unit) {
+        return unit.convert(ttlNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the time after which a cached response is recomputed in the background, or 0 if cached
+     * responses are not refreshed.
+     */
+    public long getRefreshAfter(TimeUnit unit) {
+        return unit.convert(refreshAfterNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the policy that determines which responses are discarded when the cache is full.
+     */
+    public EvictionPolicy getEvictionPolicy() {
+        return evictionPolicy;
+    }
+
+    /**
+     * Returns the number of bytes of off-heap memory the responses may occupy, or 0 if the responses
+     * are to be kept on the heap.
+     *
+     * @see Pure#offHeapBytes()
+     */
+    public long getOffHeapBytes() {
+        return offHeapBytes;
+    }
+
+    /**
+     * Returns the codec that converts requests and responses to bytes and back.
+     *
+     * @see Pure#codec()
+     */
+    public CacheCodec getCodec() {
+        return codec;
+    }
+
+    /**
+     * Cache implementations call this method whenever they discard a response because the cache
+     * is full or because the response has expired.
+     *
+     * @see CacheStatistics#getEvictionCount()
+     */
+    public void recordEviction() {
+        counters.recordEviction();
+    }
+
+    /**
+     * Cache implementations call this method whenever they notice that a response has been
+     * discarded by the garbage collector.
+     *
+     * @see CacheStatistics#getGcClearedCount()
+     */
+    public void recordGcCleared() {
+        counters.recordGcCleared();
+    }
+
+    CacheCounters getCounters() {
+        return counters;
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.timux.ports;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An immutable snapshot of the statistics of the caches of a {@link Pure} request type. The numbers
+ * are accumulated over all OUT ports of the request type.
+ *
+ * @see Ports#cacheStatistics(Class)
+ *
+ * @since 0.6.2
+ */
+public final class CacheStatistics {
+
+    private final Class<?> requestType;
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final long gcClearedCount;
+    private final long invalidationCount;
+    private final long loadCount;
+    private final long totalLoadTimeNanos;
+
+    CacheStatistics(
+            Class<?> requestType,
+            long hitCount,
+            long missCount,
+            long evictionCount,
+            long gcClearedCount,
+            long invalidationCount,
+            long loadCount,
+            long totalLoadTimeNanos)
+    {
+        this.requestType = requestType;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.gcClearedCount = gcClearedCount;
+        this.invalidationCount = invalidationCount;
+        this.loadCount = loadCount;
+        this.totalLoadTimeNanos = totalLoadTimeNanos;
+    }
+
+    /**
+     * Returns the request type these statistics belong to.
+     */
+    public Class<?> getRequestType() {
+        return requestType;
+    }
+
+    /**
+     * Returns the number of requests that have been answered from the cache.
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns the number of requests that could not be answered from the cache.
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Returns the ratio of hits to all requests, or 0 if there have not been any requests.
+     */
+    public double getHitRate() {
+        long requestCount = hitCount + missCount;
+        return requestCount == 0 ? 0.0 : (double) hitCount / requestCount;
+    }
+
+    /**
+     * Returns the number of responses that have been discarded because the cache was full or
+     * because they expired.
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Returns the number of responses that have been discarded by the garbage collector.
+     */
+    public long getGcClearedCount() {
+        return gcClearedCount;
+    }
+
+    /**
+     * Returns the number of responses that have been discarded because a message listed in
+     * {@link Pure#clearCacheOn()} has been sent.
+     */
+    public long getInvalidationCount() {
+        return invalidationCount;
+    }
+
+    /**
+     * Returns the number of responses that have been computed by the receiver and put into the cache.
+     */
+    public long getLoadCount() {
+        return loadCount;
+    }
+
+    /**
+     * Returns the total time it took to compute the responses counted by {@link #getLoadCount()}.
+     */
+    public long getTotalLoadTime(TimeUnit unit) {
+        return unit.convert(totalLoadTimeNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStatistics{"
+                + "requestType=" + requestType.getName()
+                + ", hitCount=" + hitCount
+                + ", missCount=" + missCount
+                + ", evictionCount=" + evictionCount
+                + ", gcClearedCount=" + gcClearedCount
+                + ", invalidationCount=" + invalidationCount
+                + ", loadCount=" + loadCount
+                + ", totalLoadTimeNanos=" + totalLoadTimeNanos
+                + '}';
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.timux.ports;
+
+/**
+ * The JMX view of the {@link CacheStatistics} of a {@link Pure} request type. An MXBean is registered
+ * for each request type under the name {@code org.timux.ports:type=CacheStatistics,name=<request type>}.
+ *
+ * @since 0.6.2
+ */
+public interface CacheStatisticsMXBean {
+
+    String getRequestType();
+
+    long getHitCount();
+
+    long getMissCount();
+
+    double getHitRate();
+
+    long getEvictionCount();
+
+    long getGcClearedCount();
+
+    long getInvalidationCount();
+
+    long getLoadCount();
+
+    long getTotalLoadTimeNanos();
+}
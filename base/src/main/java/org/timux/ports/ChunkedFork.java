@@ -0,0 +1,160 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.timux.ports;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Represents the future responses of a collection of requests that have been submitted in chunks
+ * (see {@link Request#forkChunked(int, java.util.function.IntFunction)}). Each chunk is processed as a single task, and
+ * the responses of all chunks are written into one array, so that there is neither a task nor a future
+ * per request.
+ *
+ * <p> If a request of a chunk fails and the response type is not an {@link org.timux.ports.types.Either}
+ * or {@link org.timux.ports.types.Either3} with a {@link org.timux.ports.types.Failure}, the whole chunk
+ * fails, and so does this fork.
+ *
+ * @since 0.6.2
+ */
+public class ChunkedFork<T> implements Future<List<T>> {
+
+    private final PortsFuture<?>[] chunks;
+
+    /*
+     * If the requests have been sent one by one, there is one "chunk" per request, and its response is
+     * not written into the array by the receiver, but has to be collected from its future.
+     */
+    private final boolean areChunksSingleRequests;
+
+    private final Object[] responses;
+
+    ChunkedFork(PortsFuture<?>[] chunks, boolean areChunksSingleRequests, Object[] responses) {
+        this.chunks = chunks;
+        this.areChunksSingleRequests = areChunksSingleRequests;
+        this.responses = responses;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p> The returned list is unmodifiable.
+     *
+     * @throws PortsExecutionException if the receiver terminated unexpectedly
+     * @throws java.util.concurrent.CancellationException {@inheritDoc}
+     */
+    @Override
+    public List<T> get() {
+        for (int i = 0; i < chunks.length; i++) {
+            Object response = chunks[i].get();
+
+            if (areChunksSingleRequests) {
+                responses[i] = response;
+            }
+        }
+
+        return getResponses();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p> The timeout applies to the fork as a whole. The returned list is unmodifiable.
+     *
+     * @throws PortsExecutionException if the receiver terminated unexpectedly
+     * @throws java.util.concurrent.CancellationException {@inheritDoc}
+     */
+    @Override
+    public List<T> get(long timeout, TimeUnit unit) throws TimeoutException {
+        long deadlineNanos = System.nanoTime() + unit.toNanos(timeout);
+
+        for (int i = 0; i < chunks.length; i++) {
+            Object response = chunks[i].get(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+
+            if (areChunksSingleRequests) {
+                responses[i] = response;
+            }
+        }
+
+        return getResponses();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<T> getResponses() {
+        return Collections.unmodifiableList(Arrays.asList((T[]) responses));
+    }
+
+    /**
+     * Returns the number of requests of this fork.
+     */
+    public int size() {
+        return responses.length;
+    }
+
+    /**
+     * Returns the number of tasks that the requests have been split into.
+     */
+    public int getNumberOfChunks() {
+        return chunks.length;
+    }
+
+    /**
+     * Cancels all chunks whose processing has not yet finished (see {@link PortsFuture#cancel}).
+     *
+     * @return True if at least one chunk has been cancelled.
+     */
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        boolean isAnyCancelled = false;
+
+        for (PortsFuture<?> chunk : chunks) {
+            isAnyCancelled |= chunk.cancel(mayInterruptIfRunning);
+        }
+
+        return isAnyCancelled;
+    }
+
+    /**
+     * Returns true if at least one chunk of this fork has been cancelled.
+     */
+    @Override
+    public boolean isCancelled() {
+        for (PortsFuture<?> chunk : chunks) {
+            if (chunk.isCancelled()) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public boolean isDone() {
+        for (PortsFuture<?> chunk : chunks) {
+            if (!chunk.isDone()) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
@@ -69,6 +69,20 @@ class ConcurrentWeakHashMap<K, V> {
         }
     }
 
+    public V remove(K key) {
+        int p = key.hashCode() & HASH_MASK;
+        Map<K, V> map = maps[p];
+        Lock lock = locks[p];
+
+        lock.lock();
+
+        try {
+            return map.remove(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
     public V compute(K key, BiFunction<K, V, V> mapper) {
         int p = key.hashCode() & HASH_MASK;
         Map<K, V> map = maps[p];
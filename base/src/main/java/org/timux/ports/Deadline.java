@@ -0,0 +1,110 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.timux.ports;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * A point in time (in terms of {@link System#nanoTime()}) after which the result of a request is of no
+ * use anymore. The deadline of the current thread is attached to every request task it creates, and it is
+ * the current deadline of the thread that runs the task, so that it propagates to nested requests.
+ */
+final class Deadline {
+
+    private static final ThreadLocal<Deadline> currentDeadline = new ThreadLocal<>();
+
+    // Avoids the thread-local lookup on the hot paths as long as no deadline has ever been set.
+    private static volatile boolean areDeadlinesUsed = false;
+
+    private final long nanos;
+
+    private Deadline(long nanos) {
+        this.nanos = nanos;
+    }
+
+    long getNanos() {
+        return nanos;
+    }
+
+    boolean isExceeded() {
+        return nanos - System.nanoTime() <= 0L;
+    }
+
+    /**
+     * Returns the deadline of the calling thread, or null.
+     */
+    static Deadline current() {
+        return areDeadlinesUsed ? currentDeadline.get() : null;
+    }
+
+    static boolean isCurrentDeadlineExceeded() {
+        Deadline deadline = current();
+        return deadline != null && deadline.isExceeded();
+    }
+
+    /**
+     * Makes the provided deadline the one of the calling thread and returns the previous one, which must
+     * be restored via {@link #exit}.
+     */
+    static Deadline enter(Deadline deadline) {
+        Deadline previous = currentDeadline.get();
+        currentDeadline.set(deadline);
+        return previous;
+    }
+
+    static void exit(Deadline previous) {
+        if (previous == null) {
+            currentDeadline.remove();
+        } else {
+            currentDeadline.set(previous);
+        }
+    }
+
+    /**
+     * Runs the provided action with a deadline after the provided timeout. If the calling thread already
+     * has an earlier deadline, that one is kept.
+     */
+    static <T> T within(long timeout, TimeUnit unit, Supplier<T> action) {
+        if (timeout < 0L) {
+            throw new IllegalArgumentException("timeout must not be negative");
+        }
+
+        areDeadlinesUsed = true;
+
+        long nanos = System.nanoTime() + unit.toNanos(timeout);
+        Deadline outer = currentDeadline.get();
+
+        if (outer != null && outer.nanos - nanos <= 0L) {
+            return action.get();
+        }
+
+        Deadline previous = enter(new Deadline(nanos));
+
+        try {
+            return action.get();
+        } finally {
+            exit(previous);
+        }
+    }
+
+    static TimeoutException newTimeoutException() {
+        return new TimeoutException("the deadline of the request has been exceeded");
+    }
+}
@@ -44,5 +44,17 @@ public enum DispatchPolicy {
      * of separate threads. (The number of threads depends on the number of logical cores available to
      * the virtual machine).
      */
-    PARALLEL
+    PARALLEL,
+
+    /**
+     * Specifies that each message shall be dispatched within its own virtual thread, i.e. without an
+     * upper bound on the number of messages that are processed in parallel. This is useful for receivers
+     * that spend most of their time blocking on I/O.
+     *
+     * <p> Virtual threads require Java 21 or newer. On older Java versions, this setting falls back
+     * to {@link #PARALLEL}.
+     *
+     * @since 0.6.2
+     */
+    VIRTUAL
 }
@@ -16,27 +16,81 @@
 
 package org.timux.ports;
 
-import java.util.ArrayDeque;
-import java.util.Deque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.Lock;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Predicate;
 
 class Dispatcher {
 
-    private final Deque<Task> queue = new ArrayDeque<>();
+    private final String name;
+
+    private final TaskQueue queue;
 
     private final Executor workerExecutor;
 
-    Dispatcher(String name, int maxNumberOfThreads) {
-        workerExecutor = maxNumberOfThreads > 0
-                ? new Executor(this, "ports-worker-" + name, maxNumberOfThreads)
+    private final VirtualThreadExecutor virtualThreadExecutor;
+
+    private final int maxQueueDepth;
+    private final Semaphore queueCapacity;
+    private final RejectionPolicy rejectionPolicy;
+
+    Dispatcher(String name) {
+        this(name, null);
+    }
+
+    Dispatcher(String name, VirtualThreadExecutor virtualThreadExecutor) {
+        this.name = name;
+        this.virtualThreadExecutor = virtualThreadExecutor;
+
+        queue = null;
+        workerExecutor = null;
+        maxQueueDepth = Integer.MAX_VALUE;
+        queueCapacity = null;
+        rejectionPolicy = null;
+    }
+
+    Dispatcher(
+            String name,
+            int coreNumberOfThreads,
+            int maxNumberOfThreads,
+            long idleLifetimeMs,
+            QueuePolicy queuePolicy,
+            int maxQueueDepth,
+            RejectionPolicy rejectionPolicy)
+    {
+        this.name = name;
+        this.maxQueueDepth = maxQueueDepth;
+        this.rejectionPolicy = rejectionPolicy;
+
+        virtualThreadExecutor = null;
+        workerExecutor = new Executor(this, "ports-worker-" + name, coreNumberOfThreads, maxNumberOfThreads, idleLifetimeMs);
+
+        queueCapacity = maxQueueDepth < Integer.MAX_VALUE
+                ? new Semaphore(maxQueueDepth)
                 : null;
+
+        switch (queuePolicy) {
+        case SHARED_QUEUE:
+            queue = workerExecutor.getMaxThreadPoolSize() == 1
+                    ? new MpscTaskQueue()
+                    : new SharedTaskQueue();
+            break;
+
+        case WORK_STEALING:
+            queue = new WorkStealingTaskQueue(workerExecutor.getMaxThreadPoolSize());
+            break;
+
+        default:
+            throw new IllegalStateException("unhandled queue policy: " + queuePolicy);
+        }
     }
 
-    <T> void dispatch(Consumer<T> eventPort, T payload, Object mutexSubject, Object sender, Object receiver) {
-        Task task = new Task(eventPort, payload, mutexSubject, sender, receiver);
+    <T> void dispatch(Consumer<T> eventPort, T payload, Lock lock, Object sender, Object receiver) {
+        Task task = new Task(eventPort, payload, lock, sender, receiver);
 
-        if (workerExecutor == null || task.getCreatedByThread().getThreadGroup() == workerExecutor.getThreadGroup()) {
+        if (isProcessedInline(task)) {
             /*
              * We must use the task infrastructure here (instead of a direct call to 'accept') because of the
              * synchronization policy which is handled within the task.
@@ -50,16 +104,54 @@ class Dispatcher {
             return;
         }
 
-        synchronized (queue) {
-            queue.offerLast(task);
-            workerExecutor.onNewEventTaskAvailable(task, queue.size());
+        if (virtualThreadExecutor != null) {
+            virtualThreadExecutor.execute(task);
+            return;
         }
+
+        if (queueCapacity != null && !queueCapacity.tryAcquire()) {
+            switch (rejectionPolicy) {
+            case BLOCK:
+                queueCapacity.acquireUninterruptibly();
+                break;
+
+            case CALLER_RUNS:
+                task.setProcessedByThread(task.getCreatedByThread());
+                task.run();
+                return;
+
+            case DROP_OLDEST:
+                if (replaceOldestTask(task)) {
+                    return;
+                }
+
+                queueCapacity.acquireUninterruptibly();
+                break;
+
+            case FAIL_FAST:
+                throw new TaskRejectedException(name, maxQueueDepth);
+
+            default:
+                throw new IllegalStateException("unhandled rejection policy: " + rejectionPolicy);
+            }
+        }
+
+        if (queueCapacity != null) {
+            task.occupyQueueSlot(queueCapacity);
+        }
+
+        workerExecutor.onNewEventTaskAvailable(task, queue.offer(task));
     }
 
-    <I, O> PortsFuture<O> dispatch(Function<I, O> requestPort, I payload, Object mutexSubject, Object sender, Object receiver, PortsFutureResponseTypeInfo responseTypeInfo) {
-        Task task = new Task(requestPort, payload, mutexSubject, sender, receiver);
+    <I, O> PortsFuture<O> dispatch(Function<I, O> requestPort, I payload, Lock lock, Object sender, Object receiver, PortsFutureResponseTypeInfo responseTypeInfo) {
+        Task task = new Task(requestPort, payload, lock, sender, receiver);
 
-        if (workerExecutor == null || task.getCreatedByThread().getThreadGroup() == workerExecutor.getThreadGroup()) {
+        if (task.expireIfDeadlineExceeded()) {
+            // There is no point in queuing a request whose response will not be awaited anymore.
+            return new PortsFuture<>(task, responseTypeInfo);
+        }
+
+        if (isProcessedInline(task)) {
             /*
              * We must use the task infrastructure here (instead of a direct call to 'apply') because of the
              * synchronization policy which is handled within the task.
@@ -69,21 +161,132 @@ class Dispatcher {
             return new PortsFuture<>(task, responseTypeInfo);
         }
 
-        synchronized (queue) {
-            queue.offerLast(task);
-            workerExecutor.onNewRequestTaskAvailable(task, queue.size());
+        if (virtualThreadExecutor != null) {
+            virtualThreadExecutor.execute(task);
+            return new PortsFuture<>(task, responseTypeInfo);
+        }
+
+        if (queueCapacity != null && !queueCapacity.tryAcquire()) {
+            switch (rejectionPolicy) {
+            case BLOCK:
+                queueCapacity.acquireUninterruptibly();
+                break;
+
+            case CALLER_RUNS:
+                task.setProcessedByThread(task.getCreatedByThread());
+                task.run();
+                return new PortsFuture<>(task, responseTypeInfo);
+
+            case DROP_OLDEST:
+                if (replaceOldestTask(task)) {
+                    return new PortsFuture<>(task, responseTypeInfo);
+                }
+
+                queueCapacity.acquireUninterruptibly();
+                break;
+
+            case FAIL_FAST:
+                return new PortsFuture<>(new TaskRejectedException(name, maxQueueDepth), responseTypeInfo);
+
+            default:
+                throw new IllegalStateException("unhandled rejection policy: " + rejectionPolicy);
+            }
+        }
+
+        if (queueCapacity != null) {
+            task.occupyQueueSlot(queueCapacity);
         }
 
+        workerExecutor.onNewRequestTaskAvailable(task, queue.offer(task));
+
         return new PortsFuture<>(task, responseTypeInfo);
     }
 
-    Task poll() {
-        synchronized (queue) {
-            return queue.pollFirst();
+    private boolean isProcessedInline(Task task) {
+        Thread createdByThread = task.getCreatedByThread();
+
+        if (virtualThreadExecutor != null) {
+            // Virtual threads do not have their own thread groups, so they must be tracked explicitly.
+            return virtualThreadExecutor.isOwnThread(createdByThread);
+        }
+
+        return workerExecutor == null || createdByThread.getThreadGroup() == workerExecutor.getThreadGroup();
+    }
+
+    /**
+     * Replaces the oldest queued task by the provided one. Returns false if there is no task to replace.
+     */
+    private boolean replaceOldestTask(Task task) {
+        Task oldestTask = queue.pollOldest();
+
+        if (oldestTask == null) {
+            return false;
+        }
+
+        // A task that has been taken over by a deadlock resolver is running already and must not be dropped.
+        if (oldestTask.claim()) {
+            oldestTask.reject(new TaskRejectedException(name, maxQueueDepth));
         }
+
+        /*
+         * The executor is not notified here because the number of queued tasks did not change. The worker
+         * that would have processed the oldest task will process this one instead. For the same reason,
+         * the slot of the oldest task is passed on, unless the oldest task has been cancelled (or taken
+         * over by a deadlock resolver) and has given its slot back already.
+         */
+        Semaphore queueSlot = oldestTask.takeQueueSlot();
+
+        if (queueSlot == null) {
+            queueCapacity.acquireUninterruptibly();
+        }
+
+        task.occupyQueueSlot(queueCapacity);
+        queue.offer(task);
+
+        return true;
+    }
+
+    Task poll(int workerIndex) {
+        return releaseQueueSlot(queue.poll(workerIndex));
+    }
+
+    /**
+     * Polls the next task like {@link #poll}, but only if it satisfies the provided condition.
+     */
+    Task pollIf(int workerIndex, Predicate<Task> condition) {
+        return releaseQueueSlot(queue.pollIf(workerIndex, condition));
+    }
+
+    private Task releaseQueueSlot(Task polledTask) {
+        if (polledTask != null && queueCapacity != null) {
+            // A no-op for cancelled tasks, they have given back their slots already.
+            polledTask.releaseQueueSlot();
+        }
+
+        return polledTask;
+    }
+
+    /**
+     * Returns the number of tasks that can be processed at the same time.
+     */
+    int getParallelism() {
+        if (virtualThreadExecutor != null) {
+            // Virtual threads are cheap, but they all run on the carrier threads.
+            return Runtime.getRuntime().availableProcessors();
+        }
+
+        return workerExecutor != null ? workerExecutor.getMaxThreadPoolSize() : 1;
+    }
+
+    int getNumberOfQueuedTasks() {
+        return queue != null ? queue.size() : 0;
     }
 
     int getNumberOfThreadsCreated() {
+        if (virtualThreadExecutor != null) {
+            return virtualThreadExecutor.getNumberOfThreadsCreated();
+        }
+
         return workerExecutor != null ? workerExecutor.getNumberOfThreadsCreated() : 0;
     }
 
@@ -94,6 +297,10 @@ class Dispatcher {
     }
 
     void awaitQuiescence() {
+        if (virtualThreadExecutor != null) {
+            virtualThreadExecutor.awaitQuiescence();
+        }
+
         if (workerExecutor != null) {
             workerExecutor.awaitQuiescence();
         }
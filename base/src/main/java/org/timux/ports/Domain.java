@@ -16,6 +16,7 @@
 
 package org.timux.ports;
 
+import java.util.concurrent.locks.Lock;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
@@ -45,22 +46,108 @@ public class Domain {
     private final SyncPolicy syncPolicy;
     private final Dispatcher dispatcher;
 
+    // True if messages can be delivered by plain method calls, without tasks or locks.
+    private final boolean isDirect;
+
+    // Only used with SyncPolicy.DOMAIN.
+    private final Lock domainLock;
+
     Domain(String name, DispatchPolicy dispatchPolicy, SyncPolicy syncPolicy) {
+        this(name, dispatchPolicy, syncPolicy, QueuePolicy.SHARED_QUEUE);
+    }
+
+    Domain(String name, DispatchPolicy dispatchPolicy, SyncPolicy syncPolicy, QueuePolicy queuePolicy) {
+        this(new DomainBuilder(name)
+                .dispatchPolicy(dispatchPolicy)
+                .syncPolicy(syncPolicy)
+                .queuePolicy(queuePolicy));
+    }
+
+    Domain(DomainBuilder builder) {
+        String name = builder.getName();
+        DispatchPolicy dispatchPolicy = builder.getDispatchPolicy();
+        QueuePolicy queuePolicy = builder.getQueuePolicy();
+
+        int coreThreads = builder.getCoreThreads();
+        int maxThreads = builder.getMaxThreads();
+        long idleLifetimeMs = builder.getIdleLifetimeMs();
+        int maxQueueDepth = builder.getMaxQueueDepth();
+
+        boolean hasThreadSettings = coreThreads != DomainBuilder.UNSPECIFIED
+                || maxThreads != DomainBuilder.UNSPECIFIED
+                || idleLifetimeMs != DomainBuilder.UNSPECIFIED;
+
+        if (queuePolicy == QueuePolicy.WORK_STEALING && dispatchPolicy != DispatchPolicy.PARALLEL) {
+            throw new IllegalArgumentException("queue policy " + queuePolicy + " requires dispatch policy " + DispatchPolicy.PARALLEL);
+        }
+
+        if (hasThreadSettings && dispatchPolicy != DispatchPolicy.PARALLEL) {
+            throw new IllegalArgumentException("thread settings require dispatch policy " + DispatchPolicy.PARALLEL);
+        }
+
+        if (maxQueueDepth != DomainBuilder.UNSPECIFIED
+                && dispatchPolicy != DispatchPolicy.ASYNCHRONOUS
+                && dispatchPolicy != DispatchPolicy.PARALLEL)
+        {
+            throw new IllegalArgumentException("queue settings require dispatch policy "
+                    + DispatchPolicy.ASYNCHRONOUS + " or " + DispatchPolicy.PARALLEL);
+        }
+
+        if (coreThreads == DomainBuilder.UNSPECIFIED) {
+            coreThreads = 1;
+        }
+
+        if (maxThreads == DomainBuilder.UNSPECIFIED) {
+            maxThreads = Math.max(coreThreads, Runtime.getRuntime().availableProcessors());
+        }
+
+        if (coreThreads < 1) {
+            throw new IllegalArgumentException("number of core threads must be at least 1: " + coreThreads);
+        }
+
+        if (maxThreads < coreThreads) {
+            throw new IllegalArgumentException("max. number of threads (" + maxThreads
+                    + ") must not be less than the number of core threads (" + coreThreads + ")");
+        }
+
+        if (idleLifetimeMs != DomainBuilder.UNSPECIFIED && idleLifetimeMs < 0) {
+            throw new IllegalArgumentException("idle lifetime must not be negative: " + idleLifetimeMs);
+        }
+
+        if (maxQueueDepth == DomainBuilder.UNSPECIFIED) {
+            maxQueueDepth = Integer.MAX_VALUE;
+        } else if (maxQueueDepth < 1) {
+            throw new IllegalArgumentException("max. queue depth must be at least 1: " + maxQueueDepth);
+        }
+
+        if (dispatchPolicy == DispatchPolicy.VIRTUAL && !VirtualThreadExecutor.isSupported()) {
+            Ports.printWarning("virtual threads are not supported by this JVM, domain '" + name
+                    + "' falls back to dispatch policy " + DispatchPolicy.PARALLEL);
+
+            dispatchPolicy = DispatchPolicy.PARALLEL;
+        }
+
         this.name = name;
         this.dispatchPolicy = dispatchPolicy;
-        this.syncPolicy = syncPolicy;
+        this.syncPolicy = builder.getSyncPolicy();
+        this.isDirect = dispatchPolicy == DispatchPolicy.SYNCHRONOUS && syncPolicy == SyncPolicy.NONE;
+        this.domainLock = syncPolicy == SyncPolicy.DOMAIN ? LockManager.getLock(this) : null;
 
         switch (dispatchPolicy) {
         case SYNCHRONOUS:
-            dispatcher = new Dispatcher(name, 0);
+            dispatcher = new Dispatcher(name);
             break;
 
         case ASYNCHRONOUS:
-            dispatcher = new Dispatcher(name, 1);
+            dispatcher = new Dispatcher(name, 1, 1, idleLifetimeMs, queuePolicy, maxQueueDepth, builder.getRejectionPolicy());
             break;
 
         case PARALLEL:
-            dispatcher = new Dispatcher(name, Runtime.getRuntime().availableProcessors());
+            dispatcher = new Dispatcher(name, coreThreads, maxThreads, idleLifetimeMs, queuePolicy, maxQueueDepth, builder.getRejectionPolicy());
+            break;
+
+        case VIRTUAL:
+            dispatcher = new Dispatcher(name, new VirtualThreadExecutor("ports-virtual-" + name));
             break;
 
         default:
@@ -100,30 +187,59 @@ public class Domain {
         return dispatchPolicy;
     }
 
+    boolean isDirect() {
+        return isDirect;
+    }
+
     <T> void dispatch(Consumer<T> eventPort, T payload, Object sender, Object receiver) {
-        dispatcher.dispatch(eventPort, payload, getMutexSubject(receiver), sender, receiver);
+        if (isDirect) {
+            try {
+                eventPort.accept(payload);
+            } catch (Exception e) {
+                // Like within a task, exceptions are left to the port, which relays them to the event exception handlers.
+            }
+
+            return;
+        }
+
+        dispatcher.dispatch(eventPort, payload, getLock(receiver), sender, receiver);
     }
 
     <I, O> PortsFuture<O> dispatch(Function<I, O> requestPort, I payload, Object sender, Object receiver, PortsFutureResponseTypeInfo responseTypeInfo) {
-        return dispatcher.dispatch(requestPort, payload, getMutexSubject(receiver), sender, receiver, responseTypeInfo);
+        if (isDirect) {
+            try {
+                return new PortsFuture<>(requestPort.apply(payload));
+            } catch (Exception e) {
+                return new PortsFuture<>(e, responseTypeInfo);
+            }
+        }
+
+        return dispatcher.dispatch(requestPort, payload, getLock(receiver), sender, receiver, responseTypeInfo);
     }
 
-    private Object getMutexSubject(Object receiverComponent) {
+    private Lock getLock(Object receiverComponent) {
         switch (syncPolicy) {
         case NONE:
             return null;
 
         case COMPONENT:
-            return receiverComponent;
+            return LockManager.getLock(receiverComponent);
 
         case DOMAIN:
-            return this;
+            return domainLock;
 
         default:
             throw new IllegalStateException("unhandled sync policy: " + syncPolicy);
         }
     }
 
+    /**
+     * Returns the number of messages to a single receiver that this domain can process at the same time.
+     */
+    int getParallelism() {
+        return syncPolicy == SyncPolicy.NONE ? dispatcher.getParallelism() : 1;
+    }
+
     int getNumberOfThreadsCreated() {
         return dispatcher.getNumberOfThreadsCreated();
     }
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A builder for synchronization domains that, beyond the settings of
+ * {@link Ports#domain(String, DispatchPolicy, SyncPolicy)}, lets you size the threads and the queue
+ * of the domain.
+ *
+ * <pre>
+ * Ports.domain("io")
+ *     .dispatchPolicy(DispatchPolicy.PARALLEL)
+ *     .syncPolicy(SyncPolicy.NONE)
+ *     .maxThreads(64)
+ *     .maxQueueDepth(10000)
+ *     .rejectionPolicy(RejectionPolicy.CALLER_RUNS)
+ *     .build()
+ *     .addPackages("com.example.io");
+ * </pre>
+ *
+ * <p> The thread settings are only applicable to domains with {@link DispatchPolicy#PARALLEL}
+ * dispatch (an {@link DispatchPolicy#ASYNCHRONOUS} domain always has exactly one thread). The queue
+ * settings are only applicable to domains with {@link DispatchPolicy#ASYNCHRONOUS} or
+ * {@link DispatchPolicy#PARALLEL} dispatch.
+ *
+ * @see Ports#domain(String)
+ *
+ * @since 0.6.2
+ */
+public class DomainBuilder {
+
+    static final int UNSPECIFIED = -1;
+
+    private final String name;
+
+    private DispatchPolicy dispatchPolicy = DispatchPolicy.SYNCHRONOUS;
+    private SyncPolicy syncPolicy = SyncPolicy.COMPONENT;
+    private QueuePolicy queuePolicy = QueuePolicy.SHARED_QUEUE;
+    private RejectionPolicy rejectionPolicy = RejectionPolicy.BLOCK;
+
+    private int coreThreads = UNSPECIFIED;
+    private int maxThreads = UNSPECIFIED;
+    private long idleLifetimeMs = UNSPECIFIED;
+    private int maxQueueDepth = UNSPECIFIED;
+
+    DomainBuilder(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Specifies how messages are dispatched. The default is {@link DispatchPolicy#SYNCHRONOUS}.
+     */
+    public DomainBuilder dispatchPolicy(DispatchPolicy dispatchPolicy) {
+        this.dispatchPolicy = dispatchPolicy;
+        return this;
+    }
+
+    /**
+     * Specifies how parallel accesses are synchronized. The default is {@link SyncPolicy#COMPONENT}.
+     */
+    public DomainBuilder syncPolicy(SyncPolicy syncPolicy) {
+        this.syncPolicy = syncPolicy;
+        return this;
+    }
+
+    /**
+     * Specifies how queued messages are distributed among the threads. The default is
+     * {@link QueuePolicy#SHARED_QUEUE}.
+     */
+    public DomainBuilder queuePolicy(QueuePolicy queuePolicy) {
+        this.queuePolicy = queuePolicy;
+        return this;
+    }
+
+    /**
+     * Specifies the number of threads that are kept alive even when they are idle. Must be at least 1,
+     * which is also the default.
+     */
+    public DomainBuilder coreThreads(int coreThreads) {
+        this.coreThreads = coreThreads;
+        return this;
+    }
+
+    /**
+     * Specifies the maximum number of threads. The default is the number of logical cores available
+     * to the virtual machine.
+     */
+    public DomainBuilder maxThreads(int maxThreads) {
+        this.maxThreads = maxThreads;
+        return this;
+    }
+
+    /**
+     * Specifies how long a thread that exceeds the number of core threads may be idle before it
+     * terminates. The default is 20 seconds.
+     */
+    public DomainBuilder idleLifetime(long idleLifetime, TimeUnit unit) {
+        this.idleLifetimeMs = unit.toMillis(idleLifetime);
+        return this;
+    }
+
+    /**
+     * Specifies the maximum number of messages that may wait in the queue of the domain. By default,
+     * the queue is unbounded.
+     *
+     * @see #rejectionPolicy
+     */
+    public DomainBuilder maxQueueDepth(int maxQueueDepth) {
+        this.maxQueueDepth = maxQueueDepth;
+        return this;
+    }
+
+    /**
+     * Specifies what happens to new messages when the queue is full. The default is
+     * {@link RejectionPolicy#BLOCK}.
+     *
+     * @see #maxQueueDepth
+     */
+    public DomainBuilder rejectionPolicy(RejectionPolicy rejectionPolicy) {
+        this.rejectionPolicy = rejectionPolicy;
+        return this;
+    }
+
+    /**
+     * Creates the domain.
+     *
+     * @throws IllegalArgumentException If a setting is invalid or not applicable to the dispatch policy.
+     */
+    public Domain build() {
+        return new Domain(this);
+    }
+
+    String getName() {
+        return name;
+    }
+
+    DispatchPolicy getDispatchPolicy() {
+        return dispatchPolicy;
+    }
+
+    SyncPolicy getSyncPolicy() {
+        return syncPolicy;
+    }
+
+    QueuePolicy getQueuePolicy() {
+        return queuePolicy;
+    }
+
+    RejectionPolicy getRejectionPolicy() {
+        return rejectionPolicy;
+    }
+
+    int getCoreThreads() {
+        return coreThreads;
+    }
+
+    int getMaxThreads() {
+        return maxThreads;
+    }
+
+    long getIdleLifetimeMs() {
+        return idleLifetimeMs;
+    }
+
+    int getMaxQueueDepth() {
+        return maxQueueDepth;
+    }
+}
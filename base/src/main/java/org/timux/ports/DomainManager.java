@@ -16,90 +16,172 @@
 
 package org.timux.ports;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 class DomainManager {
 
-    private static final String DEFAULT_DOMAIN_NAME = "default";
-    private static final Domain DEFAULT_DOMAIN = new Domain(DEFAULT_DOMAIN_NAME, DispatchPolicy.SYNCHRONOUS, SyncPolicy.COMPONENT);
-
-    private static Map<Object, Domain> instanceDomains = new WeakHashMap<>();
-    private static Map<Class<?>, Domain> classDomains = new HashMap<>();
-    private static Map<String, Domain> packageDomains = new HashMap<>();
-
-    private static int currentVersion = 0;
+    /**
+     * An immutable snapshot of the package and class registrations. Every change of the registrations
+     * publishes a new snapshot with a new version, so ports can read the current snapshot without locks
+     * and can tell from its version whether the domains they resolved earlier are still valid.
+     */
+    static class Topology {
+
+        private final int version;
+        private final Map<String, Domain> packageDomains;
+        private final Map<Class<?>, Domain> classDomains;
+        private final boolean hasInstanceDomains;
+
+        /*
+         * Caches the resolution results of this snapshot. Maps to DEFAULT_DOMAIN if there is neither a
+         * package nor a class registration for a class, in which case the instance registrations have
+         * to be checked.
+         */
+        private final Map<Class<?>, Domain> resolvedClassDomains = new ConcurrentHashMap<>();
+
+        private Topology(int version, Map<String, Domain> packageDomains, Map<Class<?>, Domain> classDomains, boolean hasInstanceDomains) {
+            this.version = version;
+            this.packageDomains = packageDomains;
+            this.classDomains = classDomains;
+            this.hasInstanceDomains = hasInstanceDomains;
+        }
 
-    static synchronized Domain getDomain(Object instance) {
-        String pkg = instance.getClass().getPackage().getName();
+        int getVersion() {
+            return version;
+        }
 
-        Domain domain;
+        Domain getDomain(Object instance) {
+            Class<?> clazz = instance.getClass();
+            Domain domain = resolvedClassDomains.get(clazz);
 
-        for (;;) {
-            domain = packageDomains.get(pkg);
+            if (domain == null) {
+                domain = resolveClassDomain(clazz);
+                resolvedClassDomains.putIfAbsent(clazz, domain);
+            }
 
-            if (domain != null) {
+            if (domain != DEFAULT_DOMAIN || !hasInstanceDomains) {
                 return domain;
             }
 
-            int dotIndex = pkg.lastIndexOf('.');
-
-            if (dotIndex < 0) {
-                break;
+            synchronized (instanceDomains) {
+                domain = instanceDomains.get(instance);
             }
 
-            pkg = pkg.substring(0, dotIndex);
+            return domain != null ? domain : DEFAULT_DOMAIN;
         }
 
-        domain = classDomains.get(instance.getClass());
+        private Domain resolveClassDomain(Class<?> clazz) {
+            String pkg = clazz.getPackage().getName();
+
+            Domain domain;
 
-        if (domain != null) {
-            return domain;
+            for (;;) {
+                domain = packageDomains.get(pkg);
+
+                if (domain != null) {
+                    return domain;
+                }
+
+                int dotIndex = pkg.lastIndexOf('.');
+
+                if (dotIndex < 0) {
+                    break;
+                }
+
+                pkg = pkg.substring(0, dotIndex);
+            }
+
+            domain = classDomains.get(clazz);
+
+            return domain != null ? domain : DEFAULT_DOMAIN;
         }
+    }
 
-        domain = instanceDomains.get(instance);
+    private static final String DEFAULT_DOMAIN_NAME = "default";
+    private static final Domain DEFAULT_DOMAIN = new Domain(DEFAULT_DOMAIN_NAME, DispatchPolicy.SYNCHRONOUS, SyncPolicy.COMPONENT);
+
+    // The following maps are only accessed by the (synchronized) writers, except for 'instanceDomains'.
+    private static final Map<Object, Domain> instanceDomains = new WeakHashMap<>();
+    private static final Map<Class<?>, Domain> classDomains = new HashMap<>();
+    private static final Map<String, Domain> packageDomains = new HashMap<>();
 
-        return domain != null ? domain : DEFAULT_DOMAIN;
+    private static volatile Topology topology = new Topology(0, Collections.emptyMap(), Collections.emptyMap(), false);
+
+    static Topology getTopology() {
+        return topology;
+    }
+
+    static Domain getDomain(Object instance) {
+        return topology.getDomain(instance);
+    }
+
+    /**
+     * Must be called (by a writer) after every change of the registrations.
+     */
+    private static void publishTopology() {
+        boolean hasInstanceDomains;
+
+        synchronized (instanceDomains) {
+            hasInstanceDomains = !instanceDomains.isEmpty();
+        }
+
+        topology = new Topology(
+                topology.version + 1,
+                new HashMap<>(packageDomains),
+                new HashMap<>(classDomains),
+                hasInstanceDomains);
     }
 
     static synchronized void register(Object instance, Domain domain) {
-        instanceDomains.put(instance, domain);
-        currentVersion++;
+        synchronized (instanceDomains) {
+            instanceDomains.put(instance, domain);
+        }
+
+        publishTopology();
     }
 
     static synchronized void register(Class<?> clazz, Domain domain) {
         classDomains.put(clazz, domain);
-        currentVersion++;
+        publishTopology();
     }
 
     static synchronized void register(String pkg, Domain domain) {
         packageDomains.put(pkg, domain);
-        currentVersion++;
+        publishTopology();
     }
 
     static int getCurrentVersion() {
-        return currentVersion;
+        return topology.version;
     }
 
     static synchronized void invalidate() {
-        currentVersion++;
+        publishTopology();
     }
 
     static synchronized void release() {
-        instanceDomains.values().forEach(Domain::release);
+        synchronized (instanceDomains) {
+            instanceDomains.values().forEach(Domain::release);
+            instanceDomains.clear();
+        }
+
         classDomains.values().forEach(Domain::release);
         packageDomains.values().forEach(Domain::release);
 
-        instanceDomains.clear();
         classDomains.clear();
         packageDomains.clear();
-        currentVersion++;
+
+        publishTopology();
     }
 
     static synchronized void awaitQuiescence() {
-        for (Map.Entry<Object, Domain> e : instanceDomains.entrySet()) {
-            e.getValue().awaitQuiescence();
+        synchronized (instanceDomains) {
+            for (Map.Entry<Object, Domain> e : instanceDomains.entrySet()) {
+                e.getValue().awaitQuiescence();
+            }
         }
     }
 }
@@ -17,7 +17,6 @@
 package org.timux.ports;
 
 import java.lang.ref.WeakReference;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.*;
 import java.util.function.Consumer;
@@ -37,25 +36,42 @@ public class Event<T> {
 
     private static class PortEntry<T> {
 
-        Consumer<T> port;
-        WeakReference<?> receiverRef;
+        final Consumer<T> port;
+        final WeakReference<?> receiverRef;
+        final Domain receiverDomain;
 
-        Domain receiverDomain;
-
-        PortEntry(Consumer<T> port, Object receiverRef) {
+        PortEntry(Consumer<T> port, WeakReference<?> receiverRef, Domain receiverDomain) {
             this.port = port;
-            this.receiverRef = new WeakReference<>(receiverRef);
+            this.receiverRef = receiverRef;
+            this.receiverDomain = receiverDomain;
         }
     }
 
-    private final List<PortEntry<T>> ports = new ArrayList<>(4);
+    /**
+     * An immutable snapshot of the connected IN ports together with the domains of their receivers.
+     * Any change creates a new snapshot (copy-on-write), so that 'trigger' can work without locks.
+     */
+    private static class Receivers<T> {
+
+        final PortEntry<T>[] portEntries;
+        final int domainVersion;
+
+        Receivers(PortEntry<T>[] portEntries, int domainVersion) {
+            this.portEntries = portEntries;
+            this.domainVersion = domainVersion;
+        }
+    }
+
+    private static final Receivers<?> NO_RECEIVERS = new Receivers<>(newPortEntries(0), -1);
+
+    @SuppressWarnings("unchecked")
+    private volatile Receivers<T> receivers = (Receivers<T>) NO_RECEIVERS;
+
     private Map<Method, Map<Object, Consumer<T>>> portMethods = null;
 
     private String eventTypeName;
     private Object owner;
 
-    private int domainVersion = -1;
-
     public Event() {
         //
     }
@@ -76,8 +92,12 @@ public class Event<T> {
             throw new IllegalArgumentException("port must not be null");
         }
 
-        ports.add(new PortEntry<>(port, receiver));
-        domainVersion = -1;
+        PortEntry<T>[] oldPortEntries = receivers.portEntries;
+        PortEntry<T>[] newPortEntries = Arrays.copyOf(oldPortEntries, oldPortEntries.length + 1);
+        newPortEntries[oldPortEntries.length] = new PortEntry<>(port, new WeakReference<>(receiver), null);
+
+        // The domain of the new receiver is not known yet, so the domains have to be resolved again.
+        receivers = new Receivers<>(newPortEntries, -1);
     }
 
     synchronized void connect(Method portMethod, Object methodOwner, EventWrapper eventWrapper) {
@@ -92,44 +112,46 @@ public class Event<T> {
         Map<Object, Consumer<T>> portOwners = portMethods.computeIfAbsent(portMethod, k -> new WeakHashMap<>(4));
 
         WeakReference<?> methodOwnerRef = new WeakReference<>(methodOwner);
+        MethodInvoker invoker = MethodInvokers.get(portMethod);
 
-        if (eventWrapper == null) {
-            portOwners.put(
-                    methodOwner,
-                    x -> {
-                        try {
-                            Object owner = methodOwnerRef.get();
-
-                            if (owner != null) {
-                                portMethod.invoke(owner, x);
-                            }
-                        } catch (InvocationTargetException e) {
-                            Ports.triggerEventException(e.getCause());
-                        } catch (Exception e) {
-                            Ports.triggerEventException(e);
-                        }
-                    });
+        if (portMethod.getAnnotation(Batch.class) != null) {
+            Consumer<List<T>> batchHandler = createPort(invoker, methodOwnerRef, eventWrapper);
+            portOwners.put(methodOwner, BatchPort.forEvents(portMethod, batchHandler));
         } else {
-            portOwners.put(
-                    methodOwner,
-                    x -> eventWrapper.execute(() -> {
-                        Object owner = methodOwnerRef.get();
-
-                        if (owner != null) {
-                            try {
-                                portMethod.invoke(owner, x);
-                            } catch (InvocationTargetException e) {
-                                Ports.triggerEventException(e.getCause());
-                            } catch (Exception e) {
-                                Ports.triggerEventException(e);
-                            }
-                        }
-                    }));
+            portOwners.put(methodOwner, createPort(invoker, methodOwnerRef, eventWrapper));
         }
 
         connect(portOwners.get(methodOwner), methodOwner);
     }
 
+    private static <X> Consumer<X> createPort(MethodInvoker invoker, WeakReference<?> methodOwnerRef, EventWrapper eventWrapper) {
+        if (eventWrapper == null) {
+            return x -> {
+                try {
+                    Object owner = methodOwnerRef.get();
+
+                    if (owner != null) {
+                        invoker.invoke(owner, x);
+                    }
+                } catch (Throwable t) {
+                    Ports.triggerEventException(t);
+                }
+            };
+        }
+
+        return x -> eventWrapper.execute(() -> {
+            Object owner = methodOwnerRef.get();
+
+            if (owner != null) {
+                try {
+                    invoker.invoke(owner, x);
+                } catch (Throwable t) {
+                    Ports.triggerEventException(t);
+                }
+            }
+        });
+    }
+
     /**
      * Connects this OUT port to the given IN port. In case this OUT port is already connected to any IN ports,
      * the new connection will be added to the existing ones.
@@ -154,18 +176,20 @@ public class Event<T> {
      * Disconnects this OUT port from the given IN port.
      */
     synchronized void disconnect(Consumer<T> port) {
+        PortEntry<T>[] oldPortEntries = receivers.portEntries;
         int index = -1;
 
-        for (int i = ports.size() - 1; i >= 0; i--) {
-            if (ports.get(i).port == port) {
+        for (int i = oldPortEntries.length - 1; i >= 0; i--) {
+            if (oldPortEntries[i].port == port) {
                 index = i;
                 break;
             }
         }
 
         if (index >= 0) {
-            ports.remove(index);
-            domainVersion = -1;
+            PortEntry<T>[] newPortEntries = Arrays.copyOf(oldPortEntries, oldPortEntries.length - 1);
+            System.arraycopy(oldPortEntries, index + 1, newPortEntries, index, newPortEntries.length - index);
+            receivers = new Receivers<>(newPortEntries, receivers.domainVersion);
         }
     }
 
@@ -197,13 +221,11 @@ public class Event<T> {
      * @see Domain
      */
     public void trigger(T payload) {
-        CacheManager.onMessageSent(payload.getClass());
-
-        final List<PortEntry<T>> p = ports;
+        CacheManager.onMessageSent(payload);
 
-        int i = p.size();
+        Receivers<T> r = receivers;
 
-        if (i == 0) {
+        if (r.portEntries.length == 0) {
             if (Protocol.areProtocolsActive) {
                 try {
                     Protocol.onDataSent(eventTypeName, owner, payload);
@@ -228,46 +250,55 @@ public class Event<T> {
             }
         }
 
-        boolean updateDomains;
+        if (r.domainVersion != DomainManager.getCurrentVersion()) {
+            r = resolveDomains();
+        }
 
-        synchronized (this) {
-            updateDomains = domainVersion != DomainManager.getCurrentVersion();
+        PortEntry<T>[] portEntries = r.portEntries;
 
-            if (updateDomains) {
-                domainVersion = DomainManager.getCurrentVersion();
+        for (int i = portEntries.length - 1; i >= 0; i--) {
+            PortEntry<T> portEntry = portEntries[i];
+            Object receiver = portEntry.receiverRef.get();
+
+            if (receiver == null) {
+                continue;
             }
+
+            portEntry.receiverDomain.dispatch(portEntry.port, payload, owner, receiver);
         }
+    }
 
-        try {
-            for (i--; i >= 0; i--) {
-                PortEntry<T> portEntry;
+    @SuppressWarnings("unchecked")
+    private static <T> PortEntry<T>[] newPortEntries(int length) {
+        return (PortEntry<T>[]) new PortEntry<?>[length];
+    }
 
-                synchronized (this) {
-                    // Synchronize this so that no disconnect can happen in parallel.
-                    portEntry = p.get(i);
-                }
+    private synchronized Receivers<T> resolveDomains() {
+        DomainManager.Topology topology = DomainManager.getTopology();
+        Receivers<T> r = receivers;
 
-                Object receiver = portEntry.receiverRef.get();
+        if (r.domainVersion == topology.getVersion()) {
+            // Another thread has been faster.
+            return r;
+        }
 
-                if (receiver == null) {
-                    continue;
-                }
+        PortEntry<T>[] portEntries = newPortEntries(r.portEntries.length);
 
-                if (updateDomains || portEntry.receiverDomain == null) {
-                    // We have to check the domain for null because a connect could have happened
-                    // in parallel (before the loop).
-                    portEntry.receiverDomain = DomainManager.getDomain(receiver);
-                }
+        for (int i = 0; i < portEntries.length; i++) {
+            PortEntry<T> portEntry = r.portEntries[i];
+            Object receiver = portEntry.receiverRef.get();
 
-                portEntry.receiverDomain.dispatch(portEntry.port, payload, owner, receiver);
-            }
-        } catch (IndexOutOfBoundsException e) {
-            // The "p.get(i)" above could cause this if a disconnect happened while
-            // the loop was executing.
-            return;
+            // If the receiver is gone, it cannot reappear, so it does not need a domain.
+            portEntries[i] = new PortEntry<>(
+                    portEntry.port,
+                    portEntry.receiverRef,
+                    receiver != null ? topology.getDomain(receiver) : null);
         }
 
+        r = new Receivers<>(portEntries, topology.getVersion());
+        receivers = r;
 
+        return r;
     }
 
     private synchronized void cleanUp() {
@@ -289,20 +320,13 @@ public class Event<T> {
             }
         }
 
-        List<PortEntry<T>> garbagePortEntries = null;
-
-        for (PortEntry<T> portEntry : ports) {
-            if (portEntry.receiverRef.get() == null) {
-                if (garbagePortEntries == null) {
-                    garbagePortEntries = new ArrayList<>();
-                }
-
-                garbagePortEntries.add(portEntry);
-            }
-        }
+        Receivers<T> r = receivers;
+        PortEntry<T>[] livePortEntries = Arrays.stream(r.portEntries)
+                .filter(portEntry -> portEntry.receiverRef.get() != null)
+                .toArray(Event::newPortEntries);
 
-        if (garbagePortEntries != null) {
-            ports.removeAll(garbagePortEntries);
+        if (livePortEntries.length < r.portEntries.length) {
+            receivers = new Receivers<>(livePortEntries, r.domainVersion);
         }
     }
 
@@ -311,6 +335,6 @@ public class Event<T> {
      */
     public synchronized boolean isConnected() {
         cleanUp();
-        return !ports.isEmpty();
+        return receivers.portEntries.length > 0;
     }
 }
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.timux.ports;
+
+/**
+ * An enum providing options for the way the cache of a {@link Pure} request chooses the
+ * responses to be discarded when it is full.
+ *
+ * @see Pure#eviction()
+ *
+ * @since 0.6.2
+ */
+public enum EvictionPolicy {
+
+    /**
+     * Specifies that the least recently used response is discarded.
+     *
+     * <p> This is the default setting.
+     */
+    LRU,
+
+    /**
+     * Specifies that the least frequently used response is discarded. In order to keep the
+     * eviction cheap, only a small sample of the oldest responses is considered.
+     */
+    LFU,
+
+    /**
+     * Specifies that new responses first enter a small LRU window. Responses leaving the window
+     * are only admitted to the main cache if they have been requested more often than the
+     * least recently used response of the main cache (which is then discarded). The access
+     * frequencies are estimated by a compact, periodically aged sketch.
+     *
+     * <p> This setting works well for request distributions with a few popular keys among many
+     * rarely used ones, where one-off requests would otherwise flush the popular responses.
+     */
+    W_TINY_LFU
+}
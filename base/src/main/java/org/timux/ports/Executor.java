@@ -24,11 +24,17 @@ import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Predicate;
 
 class Executor {
 
     private static final long IDLE_LIFETIME_MS = 20000;
 
+    // The number of times a worker yields while looking for the task of its permit, before it starts parking.
+    private static final int POLL_SPIN_LIMIT = 64;
+    private static final long POLL_PARK_NANOS = 100_000L;
+
     // The following TEST_API fields must not be private or final because they are
     // modified by the tests to achieve deterministic behavior.
     static int TEST_API_MAX_NUMBER_OF_THREADS = -1;
@@ -44,11 +50,19 @@ class Executor {
         // Optimization, this is used by the LockManager.
         private final Map<Thread, Object> seenThreads = new HashMap<>();
 
-        private final boolean isDeadlockResolver;
+        // The task a deadlock resolver has been created for, null for regular workers.
+        private final Task resolvedTask;
+
+        private final int workerIndex;
+
+        public WorkerThread(ThreadGroup threadGroup, Task resolvedTask) {
+            this(threadGroup, resolvedTask, nextThreadId.getAndIncrement());
+        }
 
-        public WorkerThread(ThreadGroup threadGroup, boolean isDeadlockResolver) {
-            super(threadGroup, threadGroup.getName() + "-" + nextThreadId.getAndIncrement());
-            this.isDeadlockResolver = isDeadlockResolver;
+        private WorkerThread(ThreadGroup threadGroup, Task resolvedTask, int workerIndex) {
+            super(threadGroup, threadGroup.getName() + "-" + workerIndex);
+            this.resolvedTask = resolvedTask;
+            this.workerIndex = workerIndex;
             setDaemon(true);
             setUncaughtExceptionHandler(this);
             start();
@@ -86,59 +100,173 @@ class Executor {
 
         @Override
         public void run() {
+            if (resolvedTask != null) {
+                runResolvedTask();
+                return;
+            }
+
             while (!threadsShallDie) {
                 boolean permitAcquired;
 
                 try {
                     permitAcquired = poolSemaphore.tryAcquire(idleLifetimeMs, TimeUnit.MILLISECONDS);
                 } catch (InterruptedException e) {
-                    synchronized (threadPool) {
-                        threadPool.remove(this);
-                        return;
-                    }
+                    removeFromThreadPool(this);
+                    return;
                 }
 
                 if (!permitAcquired || threadsShallDie) {
                     synchronized (threadPool) {
-                        if (threadPool.size() == 1 && !threadsShallDie) {
-                            // Do not kill this thread because it is the only one left.
+                        if (threadPool.size() <= coreThreadPoolSize && !threadsShallDie) {
+                            // Do not kill this thread because it is a core thread (there is always at least one).
                             continue;
                         }
 
-                        threadPool.remove(this);
+                        removeFromThreadPool(this);
                         return;
                     }
                 }
 
-                synchronized (threadPool) {
-                    numberOfBusyThreads++;
+                numberOfBusyThreads.incrementAndGet();
+
+                currentTask = pollPermittedTask();
+
+                if (currentTask == null) {
+                    synchronized (threadPool) {
+                        // Must be atomic, otherwise this thread would briefly be counted as idle.
+                        numberOfBusyThreads.decrementAndGet();
+                        removeFromThreadPool(this);
+                        return;
+                    }
                 }
 
-                // Exception handling is done within the task, so not required here.
-                currentTask = dispatcher.poll();
+                // A deadlock resolver may have taken over the task already, in which case it is just skipped.
+                if (currentTask.claim()) {
+                    runTask(currentTask, pollBatchedTasks(currentTask));
+                }
 
-                currentTask.setProcessedByThread(this);
-                currentTask.run();
                 currentTask = null;
 
-                synchronized (threadPool) {
-                    numberOfBusyThreads--;
+                numberOfBusyThreads.decrementAndGet();
+            }
+        }
 
-                    if (isDeadlockResolver) {
-                        threadPool.remove(this);
-                        return;
+        /*
+         * Each permit corresponds to a queued task, but with a queue that is not guarded by a single lock,
+         * another worker may have taken "our" task while we were scanning, in which case "its" task is still
+         * in the queue, or the producer may not have finished linking the task yet. DROP_OLDEST also takes
+         * a task out of the queue before it puts the new one in. So we just have to look again, and if the
+         * gap does not close quickly, we park in between in order not to burn a CPU. Returns null if the
+         * executor is released in the meantime.
+         */
+        private Task pollPermittedTask() {
+            Task task = dispatcher.poll(workerIndex);
+
+            for (int numberOfRuns = 0; task == null; numberOfRuns++) {
+                if (threadsShallDie) {
+                    return null;
+                }
+
+                if (numberOfRuns < POLL_SPIN_LIMIT) {
+                    Thread.yield();
+                } else {
+                    LockSupport.parkNanos(this, POLL_PARK_NANOS);
+                }
+
+                task = dispatcher.poll(workerIndex);
+            }
+
+            return task;
+        }
+
+        /*
+         * Takes the tasks for the same batch handler (see Batch) that are queued right behind the provided task,
+         * so that they are handled together with it. Each of them takes a permit, like any task that is polled.
+         * If no permit is left, another worker is about to poll the next task anyway.
+         */
+        private List<Task> pollBatchedTasks(Task task) {
+            BatchPort<?, ?> batchPort = task.getBatchPort();
+
+            if (batchPort == null) {
+                return null;
+            }
+
+            List<Task> batchedTasks = null;
+            Predicate<Task> isBatchable = task::isBatchableWith;
+
+            for (int batchSize = 1; batchSize < batchPort.getMaxSize(); ) {
+                if (threadsShallDie || !poolSemaphore.tryAcquire()) {
+                    break;
+                }
+
+                Task nextTask = dispatcher.pollIf(workerIndex, isBatchable);
+
+                if (nextTask == null) {
+                    poolSemaphore.release();
+                    break;
+                }
+
+                // A deadlock resolver may have taken over the task already, just like with any polled task.
+                if (nextTask.claim()) {
+                    if (batchedTasks == null) {
+                        batchedTasks = new ArrayList<>();
                     }
+
+                    batchedTasks.add(nextTask);
+                    batchSize++;
+                }
+            }
+
+            return batchedTasks;
+        }
+
+        /*
+         * Runs the provided task together with the batched tasks (if any). If the task is not run after all,
+         * because it has been cancelled or has expired, the next batched task takes its place.
+         */
+        private void runTask(Task task, List<Task> batchedTasks) {
+            for (;;) {
+                currentTask = task;
+
+                // Exception handling is done within the task, so not required here.
+                task.setBatchedTasks(batchedTasks);
+                task.setProcessedByThread(this);
+                task.run();
+
+                batchedTasks = task.takeBatchedTasks();
+
+                if (batchedTasks == null) {
+                    return;
+                }
+
+                task = batchedTasks.remove(0);
+
+                if (batchedTasks.isEmpty()) {
+                    batchedTasks = null;
                 }
             }
         }
 
+        private void runResolvedTask() {
+            currentTask = resolvedTask;
+            currentTask.setProcessedByThread(this);
+            currentTask.run();
+            currentTask = null;
+
+            synchronized (threadPool) {
+                // Must be atomic, otherwise this thread would briefly be counted as idle.
+                numberOfBusyThreads.decrementAndGet();
+                removeFromThreadPool(this);
+            }
+        }
+
         @Override
         public void uncaughtException(Thread thread, Throwable t) {
             // This should never happen because we catch all exceptions.
 
             synchronized (threadPool) {
-                numberOfBusyThreads--;
-                threadPool.remove(thread);
+                numberOfBusyThreads.decrementAndGet();
+                removeFromThreadPool(thread);
             }
 
             Ports.printError("Thread [" + thread.getName() + "] died because of uncaught exception:");
@@ -150,31 +278,49 @@ class Executor {
     private final ThreadGroup threadGroup;
     private final Dispatcher dispatcher;
     private final AtomicInteger nextThreadId = new AtomicInteger();
+    private final int coreThreadPoolSize;
     private final int maxThreadPoolSize;
     private final long idleLifetimeMs;
     private final Semaphore poolSemaphore = new Semaphore(0);
+    private final AtomicInteger numberOfBusyThreads = new AtomicInteger();
 
-    private boolean threadsShallDie = false;
+    private volatile boolean threadsShallDie = false;
 
-    private int numberOfBusyThreads = 0;
+    /*
+     * Mirrors threadPool.size() so that the dispatching threads can check for idle workers without
+     * entering the threadPool monitor. Only written while holding that monitor.
+     */
+    private volatile int threadPoolSize = 0;
 
-    Executor(Dispatcher dispatcher, String threadGroupName, int maxThreadPoolSize) {
+    Executor(Dispatcher dispatcher, String threadGroupName, int coreThreadPoolSize, int maxThreadPoolSize, long idleLifetimeMs) {
         this.dispatcher = dispatcher;
         this.threadGroup = new ThreadGroup(threadGroupName);
         this.maxThreadPoolSize = TEST_API_MAX_NUMBER_OF_THREADS < 0 ? maxThreadPoolSize : TEST_API_MAX_NUMBER_OF_THREADS;
-        this.idleLifetimeMs = TEST_API_IDLE_LIFETIME_MS < 0 ? IDLE_LIFETIME_MS : TEST_API_IDLE_LIFETIME_MS;
+        this.coreThreadPoolSize = Math.min(coreThreadPoolSize, this.maxThreadPoolSize);
+
+        if (TEST_API_IDLE_LIFETIME_MS >= 0) {
+            this.idleLifetimeMs = TEST_API_IDLE_LIFETIME_MS;
+        } else {
+            this.idleLifetimeMs = idleLifetimeMs < 0 ? IDLE_LIFETIME_MS : idleLifetimeMs;
+        }
     }
 
     ThreadGroup getThreadGroup() {
         return threadGroup;
     }
 
+    int getMaxThreadPoolSize() {
+        return maxThreadPoolSize;
+    }
+
     void onNewEventTaskAvailable(Task newTask, int numberOfTasksInQueue) {
-        synchronized (threadPool) {
-            if (numberOfTasksInQueue > threadPool.size() - numberOfBusyThreads
-                    && threadPool.size() < maxThreadPoolSize)
-            {
-                threadPool.add(new WorkerThread(threadGroup, false));
+        if (numberOfTasksInQueue > threadPoolSize - numberOfBusyThreads.get()) {
+            synchronized (threadPool) {
+                if (numberOfTasksInQueue > threadPool.size() - numberOfBusyThreads.get()
+                        && threadPool.size() < maxThreadPoolSize)
+                {
+                    addToThreadPool();
+                }
             }
         }
 
@@ -182,36 +328,75 @@ class Executor {
     }
 
     void onNewRequestTaskAvailable(Task newTask, int numberOfTasksInQueue) {
-        synchronized (threadPool) {
-            if (threadsShallDie) {
-                return;
-            }
+        if (threadsShallDie) {
+            return;
+        }
 
-            while (numberOfTasksInQueue > threadPool.size() - numberOfBusyThreads) {
-                if (threadPool.size() < maxThreadPoolSize) {
-                    threadPool.add(new WorkerThread(threadGroup, false));
-                } else {
-                    Task deadlockStart = LockManager.isDeadlocked(newTask, threadGroup, newTask.getLock());
+        if (numberOfTasksInQueue > threadPoolSize - numberOfBusyThreads.get()) {
+            synchronized (threadPool) {
+                if (threadsShallDie) {
+                    return;
+                }
 
-                    if (deadlockStart != null) {
-                        threadPool.add(new WorkerThread(threadGroup, true));
+                while (numberOfTasksInQueue > threadPool.size() - numberOfBusyThreads.get()) {
+                    if (threadPool.size() < maxThreadPoolSize) {
+                        addToThreadPool();
                     } else {
+                        Task deadlockStart = LockManager.isDeadlocked(newTask, threadGroup, newTask.getLock());
+
+                        if (deadlockStart != null && newTask.claim()) {
+                            addDeadlockResolver(newTask);
+                        }
+
                         break;
                     }
                 }
             }
         }
 
-
         poolSemaphore.release();
     }
 
+    private void addToThreadPool() {
+        synchronized (threadPool) {
+            threadPool.add(new WorkerThread(threadGroup, null));
+            threadPoolSize = threadPool.size();
+        }
+    }
+
+    /*
+     * A resolver that polled the queue would take whatever task is at its head, which is not necessarily
+     * the deadlocked one, and might block on the very lock that the deadlocked task has to bypass. So the
+     * resolver runs the deadlocked task directly. The task stays in the queue (it has a permit after all),
+     * but the worker that polls it will skip it because it has been claimed.
+     */
+    private void addDeadlockResolver(Task task) {
+        synchronized (threadPool) {
+            task.releaseQueueSlot();
+
+            // The resolver is busy right from the start, so it must never be counted as idle.
+            numberOfBusyThreads.incrementAndGet();
+            threadPool.add(new WorkerThread(threadGroup, task));
+            threadPoolSize = threadPool.size();
+        }
+    }
+
+    private void removeFromThreadPool(Thread thread) {
+        synchronized (threadPool) {
+            threadPool.remove(thread);
+            threadPoolSize = threadPool.size();
+        }
+    }
+
     void awaitQuiescence() {
         for (int numberOfRuns = 0; ; numberOfRuns = (numberOfRuns + 1) & 0xffffff) {
-            synchronized (threadPool) {
-                if (numberOfBusyThreads == 0) {
-                    return;
-                }
+            /*
+             * A worker counts as busy before it takes a task out of the queue, so a task that has just been
+             * queued is either still in the queue or taken by a busy worker. The queue of a released executor
+             * is not drained anymore.
+             */
+            if (numberOfBusyThreads.get() == 0 && (threadsShallDie || dispatcher.getNumberOfQueuedTasks() == 0)) {
+                return;
             }
 
             try {
@@ -235,9 +420,7 @@ class Executor {
     }
 
     boolean isQuiescent() {
-        synchronized (threadPool) {
-            return numberOfBusyThreads == 0;
-        }
+        return numberOfBusyThreads.get() == 0;
     }
 
     int getNumberOfThreads() {
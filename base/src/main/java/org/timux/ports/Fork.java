@@ -21,10 +21,21 @@ import org.timux.ports.types.Either3;
 import org.timux.ports.types.Nothing;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Represents the future responses of a collection of potentially asynchronous requests.
@@ -46,9 +57,6 @@ public class Fork<T> implements Future<List<T>> {
     /**
      * {@inheritDoc}
      *
-     * <p> This particular implementation of get does not throw a CancellationException since
-     * Forks are not cancellable.
-     *
      * @throws PortsExecutionException if the receiver terminated unexpectedly
      * @throws java.util.concurrent.CancellationException {@inheritDoc}
      */
@@ -66,26 +74,17 @@ public class Fork<T> implements Future<List<T>> {
     /**
      * {@inheritDoc}
      *
-     * <p> This particular implementation of get does not throw a CancellationException since
-     * Forks are not cancellable.
-     *
      * @throws PortsExecutionException If the receiver terminated unexpectedly.
      * @throws java.util.concurrent.CancellationException {@inheritDoc}
      */
     @Override
     public List<T> get(long timeout, TimeUnit unit) throws TimeoutException {
-        List<T> results = new ArrayList<>();
+        List<T> results = new ArrayList<>(futures.size());
 
-        long remainingWaitTime = unit.toMillis(timeout);
+        long deadlineNanos = System.nanoTime() + unit.toNanos(timeout);
 
         for (PortsFuture<T> future : futures) {
-            long startTime = System.currentTimeMillis();
-            results.add(future.get(remainingWaitTime, TimeUnit.MILLISECONDS));
-            remainingWaitTime -= System.currentTimeMillis() - startTime;
-
-            if (remainingWaitTime <= 0L) {
-                throw new TimeoutException();
-            }
+            results.add(future.get(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS));
         }
 
         return results;
@@ -104,14 +103,18 @@ public class Fork<T> implements Future<List<T>> {
      * a {@link Nothing} (if a timeout occurs), or a {@link Throwable} (if the respective receiver terminated
      * with an exception).
      *
+     * <p> The timeout applies to the fork as a whole, not to each request.
+     *
      * <p> <em>This call is blocking.</em>
      */
     public List<Either3<T, Nothing, Throwable>> getEither(long timeout, TimeUnit timeUnit) {
-        List<Either3<T, Nothing, Throwable>> results = new ArrayList<>();
+        List<Either3<T, Nothing, Throwable>> results = new ArrayList<>(futures.size());
+
+        long deadlineNanos = System.nanoTime() + timeUnit.toNanos(timeout);
 
         for (PortsFuture<T> future : futures) {
             try {
-                T result = future.get(timeout, timeUnit);
+                T result = future.get(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
                 results.add(Either3.a(result));
             } catch (TimeoutException e) {
                 results.add(Either3.b(Nothing.INSTANCE));
@@ -171,11 +174,281 @@ public class Fork<T> implements Future<List<T>> {
     }
 
     /**
-     * Instances of Fork are not cancellable, so this method will always return false and do nothing.
+     * Returns an iterator over the futures of this fork in the order in which they complete (successfully
+     * or not). Its {@code next} method blocks until the next future completes.
+     *
+     * <p> <em>This call is non-blocking.</em>
+     *
+     * @since 0.6.2
+     */
+    public Iterator<PortsFuture<T>> completionIterator() {
+        return new CompletionIterator(false, 0L);
+    }
+
+    /**
+     * Returns an iterator over the futures of this fork in the order in which they complete (successfully
+     * or not). The iteration ends when the provided timeout has elapsed, even if not all futures have
+     * completed by then. The timeout applies to the iteration as a whole.
+     *
+     * <p> <em>This call is non-blocking.</em>
+     *
+     * @since 0.6.2
+     */
+    public Iterator<PortsFuture<T>> completionIterator(long timeout, TimeUnit unit) {
+        return new CompletionIterator(true, System.nanoTime() + unit.toNanos(timeout));
+    }
+
+    /**
+     * Returns a sequential stream of the futures of this fork in the order in which they complete
+     * (see {@link #completionIterator()}).
+     *
+     * @since 0.6.2
+     */
+    public Stream<PortsFuture<T>> completionStream() {
+        return StreamSupport.stream(
+                Spliterators.spliterator(completionIterator(), futures.size(), Spliterator.ORDERED | Spliterator.NONNULL),
+                false);
+    }
+
+    /**
+     * Returns a sequential stream of the futures of this fork in the order in which they complete, which
+     * ends when the provided timeout has elapsed (see {@link #completionIterator(long, TimeUnit)}).
+     *
+     * @since 0.6.2
+     */
+    public Stream<PortsFuture<T>> completionStream(long timeout, TimeUnit unit) {
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(
+                        completionIterator(timeout, unit), Spliterator.ORDERED | Spliterator.NONNULL),
+                false);
+    }
+
+    /**
+     * Returns the first response that is available. Requests whose receivers terminate with an exception
+     * are ignored, unless all of them do.
+     *
+     * <p> The remaining requests are not affected. Use {@link #cancel} if their responses are not needed.
+     *
+     * <p> <em>This call is blocking.</em>
+     *
+     * @throws PortsExecutionException If the receivers of all requests terminated with an exception
+     *                                 (the cause is the exception of the last one).
+     * @throws IllegalArgumentException If this fork is empty.
+     *
+     * @since 0.6.2
+     */
+    public T getAny() {
+        return getFirst(1).get(0);
+    }
+
+    /**
+     * Returns the first response that is available within the provided timeout, like {@link #getAny()}.
+     *
+     * @throws TimeoutException If no response is available within the timeout.
+     *
+     * @since 0.6.2
+     */
+    public T getAny(long timeout, TimeUnit unit) throws TimeoutException {
+        return getFirst(1, timeout, unit).get(0);
+    }
+
+    /**
+     * Returns the first 'n' responses that are available, in the order in which they became available.
+     * Requests whose receivers terminate with an exception are ignored, unless too many of them do.
+     *
+     * <p> The remaining requests are not affected. Use {@link #cancel} if their responses are not needed.
+     *
+     * <p> <em>This call is blocking.</em>
+     *
+     * @throws PortsExecutionException If fewer than 'n' requests succeeded (the cause is the exception of the
+     *                                 last failed one).
+     * @throws IllegalArgumentException If 'n' is not positive or greater than the number of requests.
+     *
+     * @since 0.6.2
+     */
+    public List<T> getFirst(int n) {
+        try {
+            return getFirst(n, new CompletionIterator(false, 0L));
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("untimed wait timed out", e);
+        }
+    }
+
+    /**
+     * Returns the first 'n' responses that are available within the provided timeout, like
+     * {@link #getFirst(int)}. The timeout applies to all of them together.
+     *
+     * @throws TimeoutException If fewer than 'n' responses are available within the timeout.
+     *
+     * @since 0.6.2
+     */
+    public List<T> getFirst(int n, long timeout, TimeUnit unit) throws TimeoutException {
+        return getFirst(n, new CompletionIterator(true, System.nanoTime() + unit.toNanos(timeout)));
+    }
+
+    private List<T> getFirst(int n, CompletionIterator completedFutures) throws TimeoutException {
+        if (n <= 0 || n > futures.size()) {
+            throw new IllegalArgumentException("n must be between 1 and " + futures.size() + ": " + n);
+        }
+
+        List<T> results = new ArrayList<>(n);
+        int numberOfFailures = 0;
+
+        while (completedFutures.hasNext()) {
+            PortsFuture<T> future = completedFutures.next();
+            Throwable throwable = future.getThrowable();
+
+            if (throwable == null) {
+                results.add(future.getCompletedResponse());
+
+                if (results.size() == n) {
+                    return results;
+                }
+            } else {
+                if (++numberOfFailures > futures.size() - n) {
+                    throw throwable instanceof PortsExecutionException
+                            ? (PortsExecutionException) throwable
+                            : new PortsExecutionException(throwable);
+                }
+            }
+        }
+
+        // Only timed iterations end before all futures have completed.
+        throw new TimeoutException();
+    }
+
+    /**
+     * Combines the responses with the provided accumulator function as they become available, i.e. in
+     * the order of completion, without collecting them first. The result is the value accumulated from
+     * 'identity' and all responses.
+     *
+     * <p> <em>This call is blocking.</em>
+     *
+     * @throws PortsExecutionException If a receiver terminated unexpectedly, like {@link #get()}.
+     *
+     * @since 0.6.2
+     */
+    public <R> R fold(R identity, BiFunction<R, ? super T, R> accumulator) {
+        R result = identity;
+
+        for (Iterator<PortsFuture<T>> it = completionIterator(); it.hasNext(); ) {
+            result = accumulator.apply(result, it.next().get());
+        }
+
+        return result;
+    }
+
+    /**
+     * Combines the responses with the provided associative function as they become available, like
+     * {@link #fold}. Returns an empty Optional if this fork is empty.
+     *
+     * <p> <em>This call is blocking.</em>
+     *
+     * @throws PortsExecutionException If a receiver terminated unexpectedly, like {@link #get()}.
+     *
+     * @since 0.6.2
+     */
+    public Optional<T> reduce(BinaryOperator<T> accumulator) {
+        T result = null;
+        boolean isEmpty = true;
+
+        for (Iterator<PortsFuture<T>> it = completionIterator(); it.hasNext(); ) {
+            T response = it.next().get();
+
+            if (isEmpty) {
+                result = response;
+                isEmpty = false;
+            } else {
+                result = accumulator.apply(result, response);
+            }
+        }
+
+        return isEmpty ? Optional.empty() : Optional.ofNullable(result);
+    }
+
+    /**
+     * Cancels all requests of this fork whose responses are not yet available (see {@link PortsFuture#cancel}).
+     *
+     * @return True if at least one request has been cancelled.
+     *
+     * @since 0.6.2
      */
     @Override
     public boolean cancel(boolean mayInterruptIfRunning) {
-        return false;
+        boolean isAnyCancelled = false;
+
+        for (PortsFuture<T> future : futures) {
+            isAnyCancelled |= future.cancel(mayInterruptIfRunning);
+        }
+
+        return isAnyCancelled;
+    }
+
+    /**
+     * Hands out the futures of the fork as they complete. Each future puts itself into the queue of
+     * completed futures by means of a completion listener.
+     */
+    private class CompletionIterator implements Iterator<PortsFuture<T>> {
+
+        private final BlockingQueue<PortsFuture<T>> completedFutures = new LinkedBlockingQueue<>();
+
+        private final boolean isTimed;
+        private final long deadlineNanos;
+
+        private int numberOfOutstandingFutures;
+        private PortsFuture<T> next;
+
+        CompletionIterator(boolean isTimed, long deadlineNanos) {
+            this.isTimed = isTimed;
+            this.deadlineNanos = deadlineNanos;
+
+            numberOfOutstandingFutures = futures.size();
+
+            for (PortsFuture<T> future : futures) {
+                future.whenComplete(() -> completedFutures.add(future));
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next != null) {
+                return true;
+            }
+
+            if (numberOfOutstandingFutures == 0) {
+                return false;
+            }
+
+            try {
+                next = isTimed
+                        ? completedFutures.poll(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS)
+                        : completedFutures.take();
+            } catch (InterruptedException e) {
+                throw new PortsExecutionException(e);
+            }
+
+            if (next == null) {
+                // The deadline has passed, so the iteration ends here for good.
+                numberOfOutstandingFutures = 0;
+                return false;
+            }
+
+            numberOfOutstandingFutures--;
+
+            return true;
+        }
+
+        @Override
+        public PortsFuture<T> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            PortsFuture<T> future = next;
+            next = null;
+
+            return future;
+        }
     }
 
     @Override
@@ -190,10 +463,18 @@ public class Fork<T> implements Future<List<T>> {
     }
 
     /**
-     * Instances of Fork are not cancellable, so this method will always return false.
+     * Returns true if at least one request of this fork has been cancelled.
+     *
+     * @since 0.6.2
      */
     @Override
     public boolean isCancelled() {
+        for (PortsFuture<T> future : futures) {
+            if (future.isCancelled()) {
+                return true;
+            }
+        }
+
         return false;
     }
 }
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.timux.ports;
+
+/**
+ * A count-min sketch that estimates the access frequencies of keys with four small counters per key.
+ * All counters are halved periodically, so that the estimates reflect the recent history.
+ *
+ * <p> This class is not thread-safe.
+ */
+class FrequencySketch {
+
+    private static final int DEPTH = 4;
+    private static final int MAX_COUNT = 15;
+    private static final int[] SEEDS = {0x97cb3127, 0xb9c3e4d5, 0x8d4c3b2f, 0xe3b7c5a1};
+
+    private final byte[] counters;
+    private final int widthMask;
+    private final int sampleSize;
+
+    private int numberOfAdditions = 0;
+
+    FrequencySketch(int capacity) {
+        int width = Integer.highestOneBit(Math.max(16, capacity - 1) << 2);
+        this.counters = new byte[DEPTH * width];
+        this.widthMask = width - 1;
+        this.sampleSize = 10 * Math.max(16, capacity);
+    }
+
+    int frequency(Object key) {
+        int hash = key.hashCode();
+        int min = MAX_COUNT;
+
+        for (int row = 0; row < DEPTH; row++) {
+            min = Math.min(min, counters[indexOf(hash, row)]);
+        }
+
+        return min;
+    }
+
+    void increment(Object key) {
+        int hash = key.hashCode();
+        boolean wasIncremented = false;
+
+        for (int row = 0; row < DEPTH; row++) {
+            int i = indexOf(hash, row);
+
+            if (counters[i] < MAX_COUNT) {
+                counters[i]++;
+                wasIncremented = true;
+            }
+        }
+
+        if (wasIncremented && ++numberOfAdditions >= sampleSize) {
+            age();
+        }
+    }
+
+    private void age() {
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] >>= 1;
+        }
+
+        numberOfAdditions >>= 1;
+    }
+
+    private int indexOf(int hash, int row) {
+        int h = hash * SEEDS[row];
+        h ^= h >>> 16;
+        return row * (widthMask + 1) + (h & widthMask);
+    }
+}
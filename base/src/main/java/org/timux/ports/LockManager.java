@@ -27,6 +27,7 @@ class LockManager {
 
     private static final ConcurrentWeakHashMap<Object, Lock> subjectLocks = new ConcurrentWeakHashMap<>();
     private static final ConcurrentWeakHashMap<Thread, List<Lock>> plainThreadLocks = new ConcurrentWeakHashMap<>();
+    private static final ConcurrentWeakHashMap<Thread, Task> plainThreadTasks = new ConcurrentWeakHashMap<>();
 
     private static final Map<Thread, Object> seenThreads = new HashMap<>(128);
     private static final Object DUMMY_VALUE = new Object();
@@ -53,6 +54,20 @@ class LockManager {
         }
     }
 
+    static void setCurrentTaskForPlainThread(Thread thread, Task task) {
+        plainThreadTasks.put(thread, task);
+    }
+
+    static void removeCurrentTaskForPlainThread(Thread thread) {
+        plainThreadTasks.remove(thread);
+    }
+
+    static Task getCurrentTask(Thread thread) {
+        return thread instanceof Executor.WorkerThread
+                ? ((Executor.WorkerThread) thread).getCurrentTask()
+                : plainThreadTasks.get(thread);
+    }
+
     static Task isDeadlocked(Task task, ThreadGroup targetGroup, Lock wantedLock) {
         if (Thread.currentThread() instanceof Executor.WorkerThread) {
             Executor.WorkerThread w = ((Executor.WorkerThread) Thread.currentThread());
@@ -117,12 +132,21 @@ class LockManager {
 
             if (lockList != null) {
                 synchronized (lockList) {
-                    return lockList.contains(wantedLock) ? task : null;
+                    if (lockList.contains(wantedLock)) {
+                        return task;
+                    }
                 }
             }
-        }
 
-        return null;
+            // Plain threads that process tasks (i.e. virtual threads) may be waiting for other tasks as well.
+            Task processedTask = plainThreadTasks.get(createdByThread);
+
+            if (processedTask == null) {
+                return null;
+            }
+
+            return isDeadlocked0(processedTask, seenThreads, targetGroup, wantedLock);
+        }
 
         // T1(A) -> T2(B) -> T3(A?)
     }
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports;
+
+/**
+ * Invokes an IN port method on behalf of an OUT port.
+ *
+ * @see MethodInvokers
+ */
+@FunctionalInterface
+interface MethodInvoker {
+
+    /**
+     * Invokes the method on the provided owner. Exceptions thrown by the method are passed through
+     * unchanged, i.e. without being wrapped into an {@link java.lang.reflect.InvocationTargetException}.
+     * For void methods, the return value is null.
+     */
+    Object invoke(Object methodOwner, Object argument) throws Throwable;
+}
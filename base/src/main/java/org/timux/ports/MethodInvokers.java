@@ -0,0 +1,204 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+
+/**
+ * Creates {@link MethodInvoker}s for IN port methods. In order of preference, an invoker is
+ *
+ * <ol>
+ *     <li>a class generated by the {@link LambdaMetafactory} that calls the method directly,</li>
+ *     <li>a {@link MethodHandle} of the method (e.g. if the JVM does not grant the access rights
+ *     the LambdaMetafactory requires for private methods), or</li>
+ *     <li>the method itself, called via reflection.</li>
+ * </ol>
+ *
+ * Invokers are cached per method because generating them is expensive and components of the same class
+ * are usually connected many times. The cache holds them weakly (the ports that use an invoker hold it
+ * strongly), since a generated invoker references the class of its method and would otherwise keep that
+ * class and its class loader from being unloaded.
+ */
+class MethodInvokers {
+
+    private static final MethodType INVOKER_METHOD_TYPE = MethodType.methodType(Object.class, Object.class, Object.class);
+
+    private static final int ALL_LOOKUP_MODES = MethodHandles.Lookup.PUBLIC
+            | MethodHandles.Lookup.PRIVATE
+            | MethodHandles.Lookup.PROTECTED
+            | MethodHandles.Lookup.PACKAGE;
+
+    private static final Method PRIVATE_LOOKUP_IN_METHOD;
+    private static final Constructor<MethodHandles.Lookup> LOOKUP_CONSTRUCTOR;
+
+    static {
+        Method privateLookupInMethod = null;
+        Constructor<MethodHandles.Lookup> lookupConstructor = null;
+
+        try {
+            // Java 9+
+            privateLookupInMethod = MethodHandles.class.getMethod("privateLookupIn", Class.class, MethodHandles.Lookup.class);
+        } catch (NoSuchMethodException e) {
+            try {
+                // Java 8
+                lookupConstructor = MethodHandles.Lookup.class.getDeclaredConstructor(Class.class, int.class);
+                lookupConstructor.setAccessible(true);
+            } catch (Exception e2) {
+                lookupConstructor = null;
+            }
+        }
+
+        PRIVATE_LOOKUP_IN_METHOD = privateLookupInMethod;
+        LOOKUP_CONSTRUCTOR = lookupConstructor;
+    }
+
+    private static final ClassValue<Map<Method, WeakReference<MethodInvoker>>> invokers =
+            new ClassValue<Map<Method, WeakReference<MethodInvoker>>>() {
+
+                @Override
+                protected Map<Method, WeakReference<MethodInvoker>> computeValue(Class<?> type) {
+                    return new ConcurrentHashMap<>(4);
+                }
+            };
+
+    private MethodInvokers() {
+        //
+    }
+
+    static MethodInvoker get(Method method) {
+        Map<Method, WeakReference<MethodInvoker>> classInvokers = invokers.get(method.getDeclaringClass());
+        WeakReference<MethodInvoker> invokerRef = classInvokers.get(method);
+        MethodInvoker invoker = invokerRef != null ? invokerRef.get() : null;
+
+        if (invoker == null) {
+            // If two threads get here at the same time, both invokers work, one of them is just not cached.
+            invoker = create(method);
+            classInvokers.put(method, new WeakReference<>(invoker));
+        }
+
+        return invoker;
+    }
+
+    private static MethodInvoker create(Method method) {
+        MethodHandles.Lookup lookup = getLookup(method);
+
+        if (lookup != null) {
+            MethodHandle methodHandle;
+
+            try {
+                methodHandle = lookup.unreflect(method);
+            } catch (IllegalAccessException e) {
+                methodHandle = null;
+            }
+
+            if (methodHandle != null) {
+                MethodInvoker invoker = createGeneratedInvoker(lookup, methodHandle);
+
+                if (invoker != null) {
+                    return invoker;
+                }
+
+                MethodHandle genericMethodHandle = methodHandle.asType(INVOKER_METHOD_TYPE);
+
+                return (methodOwner, argument) -> genericMethodHandle.invokeExact(methodOwner, argument);
+            }
+        }
+
+        return (methodOwner, argument) -> {
+            try {
+                return method.invoke(methodOwner, argument);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static MethodInvoker createGeneratedInvoker(MethodHandles.Lookup lookup, MethodHandle methodHandle) {
+        MethodType methodType = methodHandle.type();
+
+        try {
+            if (methodType.returnType() == void.class) {
+                CallSite callSite = LambdaMetafactory.metafactory(
+                        lookup,
+                        "accept",
+                        MethodType.methodType(BiConsumer.class),
+                        MethodType.methodType(void.class, Object.class, Object.class),
+                        methodHandle,
+                        methodType);
+
+                BiConsumer<Object, Object> consumer = (BiConsumer<Object, Object>) callSite.getTarget().invokeExact();
+
+                return (methodOwner, argument) -> {
+                    consumer.accept(methodOwner, argument);
+                    return null;
+                };
+            } else {
+                CallSite callSite = LambdaMetafactory.metafactory(
+                        lookup,
+                        "apply",
+                        MethodType.methodType(BiFunction.class),
+                        MethodType.methodType(Object.class, Object.class, Object.class),
+                        methodHandle,
+                        methodType.wrap());
+
+                BiFunction<Object, Object, Object> function = (BiFunction<Object, Object, Object>) callSite.getTarget().invokeExact();
+
+                return function::apply;
+            }
+        } catch (Throwable t) {
+            // E.g. on Java 14+, which requires full privilege access for private methods.
+            return null;
+        }
+    }
+
+    private static MethodHandles.Lookup getLookup(Method method) {
+        Class<?> declaringClass = method.getDeclaringClass();
+
+        if (Modifier.isPublic(declaringClass.getModifiers()) && Modifier.isPublic(method.getModifiers())) {
+            return MethodHandles.lookup();
+        }
+
+        try {
+            if (PRIVATE_LOOKUP_IN_METHOD != null) {
+                return (MethodHandles.Lookup) PRIVATE_LOOKUP_IN_METHOD.invoke(null, declaringClass, MethodHandles.lookup());
+            }
+
+            if (LOOKUP_CONSTRUCTOR != null) {
+                return LOOKUP_CONSTRUCTOR.newInstance(declaringClass, ALL_LOOKUP_MODES);
+            }
+        } catch (Exception e) {
+            //
+        }
+
+        // The method has been made accessible via reflection, so unreflecting it does not require private access.
+        return MethodHandles.lookup();
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+
+/**
+ * A lock-free multi-producer/single-consumer queue (a linked list with a stub head node), intended
+ * for domains with a single worker thread.
+ */
+class MpscTaskQueue implements TaskQueue {
+
+    private static final class Node {
+
+        private Task task;
+        private volatile Node next;
+
+        Node(Task task) {
+            this.task = task;
+        }
+    }
+
+    private final AtomicReference<Node> tail;
+    private final AtomicInteger size = new AtomicInteger();
+
+    /*
+     * Usually there is only one consumer, but there may be additional ones (e.g. senders that drop the
+     * oldest task), so the consumer side is guarded. A consumer that finds the guard taken reports an empty queue
+     * and looks again later. The guard also publishes 'head' from one consumer to the next.
+     */
+    private final AtomicBoolean isPolling = new AtomicBoolean();
+
+    private Node head;
+
+    MpscTaskQueue() {
+        head = new Node(null);
+        tail = new AtomicReference<>(head);
+    }
+
+    @Override
+    public int offer(Task task) {
+        Node node = new Node(task);
+
+        // Counting first ensures that the size is never smaller than the number of pollable tasks.
+        int newSize = size.incrementAndGet();
+
+        tail.getAndSet(node).next = node;
+
+        return newSize;
+    }
+
+    @Override
+    public Task poll(int workerIndex) {
+        return dequeue(null);
+    }
+
+    @Override
+    public Task pollIf(int workerIndex, Predicate<Task> condition) {
+        return dequeue(condition);
+    }
+
+    private Task dequeue(Predicate<Task> condition) {
+        if (!isPolling.compareAndSet(false, true)) {
+            return null;
+        }
+
+        try {
+            Node next = head.next;
+
+            if (next == null) {
+                // Either the queue is empty or a producer is between swapping the tail and linking.
+                return null;
+            }
+
+            if (condition != null && !condition.test(next.task)) {
+                return null;
+            }
+
+            Task task = next.task;
+            next.task = null;
+            head = next;
+
+            size.decrementAndGet();
+
+            return task;
+        } finally {
+            isPolling.set(false);
+        }
+    }
+
+    /*
+     * The worker holds the guard only for a few instructions, and a producer that has counted its task
+     * is about to link it, so waiting for either of them is short. Returning null instead (like 'poll'
+     * does) would make the sender fall back to blocking, which is what DROP_OLDEST promises not to do.
+     */
+    @Override
+    public Task pollOldest() {
+        for (;;) {
+            if (size.get() == 0) {
+                return null;
+            }
+
+            Task task = poll(0);
+
+            if (task != null) {
+                return task;
+            }
+
+            Thread.yield();
+        }
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+}
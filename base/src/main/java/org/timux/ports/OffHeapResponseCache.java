@@ -0,0 +1,339 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.timux.ports;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link ResponseCache} that keeps the responses outside of the Java heap, encoded by a {@link CacheCodec},
+ * so that large amounts of cached data do not add to the work of the garbage collector. Only the keys and
+ * some bookkeeping remain on the heap.
+ *
+ * <p> The memory consists of direct byte buffers (slabs) that are divided into blocks of equal size and
+ * allocated on demand. A response occupies as many blocks as it needs, so the memory does not fragment.
+ * The eviction policy is always LRU; when the cache is full, either with respect to the number of
+ * responses or with respect to the number of bytes, the least recently used responses are discarded.
+ *
+ * <p> Each hit decodes the response, i.e. senders get a fresh copy each time.
+ */
+class OffHeapResponseCache implements ResponseCache<Object, Object> {
+
+    static final int BLOCK_SIZE = 1024;
+
+    private static final int MAX_SLAB_SIZE = 64 << 20;
+    private static final int BLOCKS_PER_SLAB = MAX_SLAB_SIZE / BLOCK_SIZE;
+
+    private static final int[] NO_BLOCKS = new int[0];
+
+    private static class Slot {
+
+        final int[] blocks;
+        final int length;
+        final long writeTimeNanos;
+
+        // Only used if the response is refreshed ahead of time.
+        final long refreshDueNanos;
+        final AtomicLong nextRefreshNanos;
+
+        // Set when the blocks have been returned to the free list. Only accessed while holding the monitor.
+        boolean isReleased = false;
+
+        Slot(int[] blocks, int length, long writeTimeNanos, long refreshDueNanos, AtomicLong nextRefreshNanos) {
+            this.blocks = blocks;
+            this.length = length;
+            this.writeTimeNanos = writeTimeNanos;
+            this.refreshDueNanos = refreshDueNanos;
+            this.nextRefreshNanos = nextRefreshNanos;
+        }
+    }
+
+    private final CacheSpec spec;
+    private final CacheCodec codec;
+    private final int capacity;
+    private final long ttlNanos;
+
+    private final LinkedHashMap<Object, Slot> index = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final int numberOfBlocks;
+    private final ByteBuffer[] slabs;
+    private final int[] freeBlocks;
+    private int numberOfFreeBlocks = 0;
+    private int nextUnusedBlock = 0;
+
+    private volatile boolean isEncodingWarningPrinted = false;
+
+    OffHeapResponseCache(CacheSpec spec) {
+        this.spec = spec;
+        this.codec = spec.getCodec();
+        this.capacity = spec.getCapacity();
+        this.ttlNanos = spec.getTtl(TimeUnit.NANOSECONDS);
+
+        long numberOfBlocks = spec.getOffHeapBytes() / BLOCK_SIZE;
+
+        if (numberOfBlocks < 1 || numberOfBlocks > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("off-heap cache size of " + spec.getRequestType().getName()
+                    + " must be between " + BLOCK_SIZE + " and " + ((long) Integer.MAX_VALUE * BLOCK_SIZE) + " bytes");
+        }
+
+        this.numberOfBlocks = (int) numberOfBlocks;
+        this.slabs = new ByteBuffer[(this.numberOfBlocks + BLOCKS_PER_SLAB - 1) / BLOCKS_PER_SLAB];
+        this.freeBlocks = new int[this.numberOfBlocks];
+    }
+
+    @Override
+    public Object get(Object key) {
+        Slot slot;
+        byte[] bytes;
+
+        synchronized (this) {
+            slot = index.get(key);
+
+            if (slot == null) {
+                return null;
+            }
+
+            if (ttlNanos > 0 && System.nanoTime() - slot.writeTimeNanos >= ttlNanos) {
+                release(index.remove(key));
+                spec.recordEviction();
+                return null;
+            }
+
+            bytes = read(slot);
+        }
+
+        return decode(key, slot, bytes);
+    }
+
+    private Object decode(Object key, Slot slot, byte[] bytes) {
+        Object response;
+
+        try {
+            response = codec.decode(bytes);
+        } catch (Exception e) {
+            Ports.printError("cannot decode cached response of " + spec.getRequestType().getName()
+                    + ", it is discarded");
+            e.printStackTrace();
+            remove(key);
+            return null;
+        }
+
+        return slot.nextRefreshNanos != null
+                ? new RequestCache.RefreshableResponse(response, slot.refreshDueNanos, slot.nextRefreshNanos)
+                : response;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        put(key, value, 0L);
+    }
+
+    @Override
+    public void put(Object key, Object value, long ageNanos) {
+        long refreshDueNanos = 0L;
+        AtomicLong nextRefreshNanos = null;
+
+        if (value instanceof RequestCache.RefreshableResponse) {
+            RequestCache.RefreshableResponse refreshableResponse = (RequestCache.RefreshableResponse) value;
+            value = refreshableResponse.response;
+            refreshDueNanos = refreshableResponse.refreshDueNanos;
+            nextRefreshNanos = refreshableResponse.nextRefreshNanos;
+        }
+
+        byte[] bytes;
+
+        try {
+            bytes = codec.encode(value);
+        } catch (Exception e) {
+            if (!isEncodingWarningPrinted) {
+                isEncodingWarningPrinted = true;
+                Ports.printWarning("cannot encode responses of " + spec.getRequestType().getName()
+                        + ", they are not cached (" + e + ")");
+            }
+
+            remove(key);
+            return;
+        }
+
+        int requiredBlocks = (bytes.length + BLOCK_SIZE - 1) / BLOCK_SIZE;
+
+        synchronized (this) {
+            Slot oldSlot = index.remove(key);
+
+            if (oldSlot != null) {
+                release(oldSlot);
+            }
+
+            if (requiredBlocks > numberOfBlocks) {
+                spec.recordEviction();
+                return;
+            }
+
+            while (index.size() >= capacity || numberOfAvailableBlocks() < requiredBlocks) {
+                Iterator<Map.Entry<Object, Slot>> it = index.entrySet().iterator();
+                release(it.next().getValue());
+                it.remove();
+                spec.recordEviction();
+            }
+
+            int[] blocks = requiredBlocks > 0 ? new int[requiredBlocks] : NO_BLOCKS;
+
+            for (int i = 0; i < requiredBlocks; i++) {
+                blocks[i] = allocateBlock();
+            }
+
+            Slot slot = new Slot(
+                    blocks,
+                    bytes.length,
+                    ttlNanos > 0 ? System.nanoTime() - ageNanos : 0L,
+                    refreshDueNanos,
+                    nextRefreshNanos);
+
+            write(slot, bytes);
+            index.put(key, slot);
+        }
+    }
+
+    @Override
+    public synchronized boolean remove(Object key) {
+        Slot slot = index.remove(key);
+
+        if (slot == null) {
+            return false;
+        }
+
+        release(slot);
+        return true;
+    }
+
+    /**
+     * Removes all entries. The memory is kept for reuse; it is returned to the system when the cache
+     * is garbage collected.
+     */
+    @Override
+    public synchronized void clear() {
+        for (Slot slot : index.values()) {
+            slot.isReleased = true;
+        }
+
+        index.clear();
+        numberOfFreeBlocks = 0;
+        nextUnusedBlock = 0;
+    }
+
+    @Override
+    public synchronized int size() {
+        return index.size();
+    }
+
+    @Override
+    public void forEach(EntryAction<? super Object, ? super Object> action) {
+        List<Object> keys = new ArrayList<>();
+        List<Slot> slots = new ArrayList<>();
+        long now = System.nanoTime();
+
+        synchronized (this) {
+
+            for (Map.Entry<Object, Slot> e : index.entrySet()) {
+                if (ttlNanos <= 0 || now - e.getValue().writeTimeNanos < ttlNanos) {
+                    keys.add(e.getKey());
+                    slots.add(e.getValue());
+                }
+            }
+        }
+
+        // The responses are copied one at a time, so that the whole cache is never on the heap at once.
+        for (int i = 0; i < keys.size(); i++) {
+            Slot slot = slots.get(i);
+            byte[] bytes;
+
+            synchronized (this) {
+                if (slot.isReleased) {
+                    continue;
+                }
+
+                bytes = read(slot);
+            }
+
+            Object response = decode(keys.get(i), slot, bytes);
+
+            if (response != null) {
+                action.accept(keys.get(i), response, ttlNanos > 0 ? Math.max(0L, now - slot.writeTimeNanos) : 0L);
+            }
+        }
+    }
+
+    private int numberOfAvailableBlocks() {
+        return numberOfFreeBlocks + (numberOfBlocks - nextUnusedBlock);
+    }
+
+    private int allocateBlock() {
+        if (numberOfFreeBlocks > 0) {
+            return freeBlocks[--numberOfFreeBlocks];
+        }
+
+        int block = nextUnusedBlock++;
+        int slabIndex = block / BLOCKS_PER_SLAB;
+
+        if (slabs[slabIndex] == null) {
+            int slabBlocks = Math.min(BLOCKS_PER_SLAB, numberOfBlocks - slabIndex * BLOCKS_PER_SLAB);
+            slabs[slabIndex] = ByteBuffer.allocateDirect(slabBlocks * BLOCK_SIZE);
+        }
+
+        return block;
+    }
+
+    private void release(Slot slot) {
+        slot.isReleased = true;
+
+        for (int block : slot.blocks) {
+            freeBlocks[numberOfFreeBlocks++] = block;
+        }
+    }
+
+    private void write(Slot slot, byte[] bytes) {
+        for (int i = 0, offset = 0; i < slot.blocks.length; i++, offset += BLOCK_SIZE) {
+            ByteBuffer slab = positionAt(slot.blocks[i]);
+            slab.put(bytes, offset, Math.min(BLOCK_SIZE, bytes.length - offset));
+        }
+    }
+
+    private byte[] read(Slot slot) {
+        byte[] bytes = new byte[slot.length];
+
+        for (int i = 0, offset = 0; i < slot.blocks.length; i++, offset += BLOCK_SIZE) {
+            ByteBuffer slab = positionAt(slot.blocks[i]);
+            slab.get(bytes, offset, Math.min(BLOCK_SIZE, bytes.length - offset));
+        }
+
+        return bytes;
+    }
+
+    private ByteBuffer positionAt(int block) {
+        // The slabs are only accessed while holding the monitor, so their positions can be shared.
+        ByteBuffer slab = slabs[block / BLOCKS_PER_SLAB];
+        slab.position((block % BLOCKS_PER_SLAB) * BLOCK_SIZE);
+        return slab;
+    }
+}
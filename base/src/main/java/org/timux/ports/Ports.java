@@ -21,6 +21,7 @@ import java.lang.ref.WeakReference;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -28,7 +29,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * The main utility class of the Ports Framework.
@@ -372,11 +376,13 @@ public final class Ports {
                 continue;
             }
 
-            String typeString = Arrays.stream(method.getGenericParameterTypes())
-                    .map(Type::getTypeName)
-                    .reduce((r, x) -> r + "," + x)
-                    .orElse("-")
-                    + ", " + method.getGenericReturnType().getTypeName();
+            String typeString = method.getAnnotation(Batch.class) != null
+                    ? getBatchHandlerTypeString(method)
+                    : Arrays.stream(method.getGenericParameterTypes())
+                            .map(Type::getTypeName)
+                            .reduce((r, x) -> r + "," + x)
+                            .orElse("-")
+                            + ", " + method.getGenericReturnType().getTypeName();
 
             if (methodsByType.containsKey(typeString)) {
                 throw new AmbiguousPortsException(from.getClass().getName(), to.getClass().getName(), typeString);
@@ -388,6 +394,32 @@ public final class Ports {
         return methodsByType;
     }
 
+    /**
+     * Returns the type string of the single message handler that corresponds to the provided batch handler,
+     * so that the batch handler can be connected to the OUT ports of the single messages.
+     */
+    private static String getBatchHandlerTypeString(Method method) {
+        boolean isEventHandler = method.getReturnType() == void.class;
+
+        if (method.getParameterCount() != 1
+                || method.getParameterTypes()[0] != List.class
+                || (method.getReturnType() != List.class && !isEventHandler))
+        {
+            throw new IllegalArgumentException("batch handler " + method.getDeclaringClass().getName() + "."
+                    + method.getName() + " must take a List of messages and return either a List of responses or void");
+        }
+
+        String messageTypeName = TypeUtils.extractTypeParameter(method.getGenericParameterTypes()[0].getTypeName(), "-");
+
+        if (isEventHandler) {
+            return messageTypeName + ", void";
+        }
+
+        String responseTypeName = TypeUtils.extractTypeParameter(method.getGenericReturnType().getTypeName(), "-");
+
+        return messageTypeName + ", " + responseTypeName;
+    }
+
     /**
      * Checks whether all OUT ports of the provided components are connected.
      *
@@ -555,6 +587,40 @@ public final class Ports {
         DomainManager.awaitQuiescence();
     }
 
+    /**
+     * Runs the provided action with a deadline after the provided timeout. Every request issued within the
+     * action carries this deadline, and so does every request that is issued while handling it, no matter
+     * in which thread. Waiting for a response ends at the deadline, in which case the request terminates
+     * with a {@link java.util.concurrent.TimeoutException} (wrapped into a {@link PortsExecutionException},
+     * or returned as a {@link org.timux.ports.types.Failure} for responses of Either types). Requests that
+     * are still queued when the deadline passes are not handled at all. Handlers that are already running
+     * are not interrupted.
+     *
+     * <p> If a deadline is active already and it is earlier, that one is kept.
+     *
+     * @return The value returned by the action.
+     *
+     * @see Request#call(Object, long, TimeUnit)
+     *
+     * @since 0.6.2
+     */
+    public static <T> T withDeadline(long timeout, TimeUnit unit, Supplier<T> action) {
+        return Deadline.within(timeout, unit, action);
+    }
+
+    /**
+     * Runs the provided action with a deadline after the provided timeout, like
+     * {@link #withDeadline(long, TimeUnit, Supplier)}.
+     *
+     * @since 0.6.2
+     */
+    public static void withDeadline(long timeout, TimeUnit unit, Runnable action) {
+        Deadline.within(timeout, unit, () -> {
+            action.run();
+            return null;
+        });
+    }
+
     /**
      * Configures a synchronization domain. Each Ports component is assigned to exactly one
      * synchronization domain that specifies how (a) messages are dispatched (synchronously,
@@ -576,6 +642,32 @@ public final class Ports {
         return new Domain(name, dispatchPolicy, syncPolicy);
     }
 
+    /**
+     * Configures a synchronization domain like {@link #domain(String, DispatchPolicy, SyncPolicy)}, but
+     * additionally specifies how queued messages are distributed among the threads of the domain.
+     *
+     * @throws IllegalArgumentException If the queue policy is not applicable to the dispatch policy.
+     *
+     * @see QueuePolicy
+     *
+     * @since 0.6.2
+     */
+    public static Domain domain(String name, DispatchPolicy dispatchPolicy, SyncPolicy syncPolicy, QueuePolicy queuePolicy) {
+        return new Domain(name, dispatchPolicy, syncPolicy, queuePolicy);
+    }
+
+    /**
+     * Returns a builder for a synchronization domain that lets you specify the thread and queue settings
+     * of the domain in addition to its dispatch, synchronization, and queue policies.
+     *
+     * @see DomainBuilder
+     *
+     * @since 0.6.2
+     */
+    public static DomainBuilder domain(String name) {
+        return new DomainBuilder(name);
+    }
+
     /**
      * Removes all synchronization domains from the registry. This causes all components to fall
      * back to the default domain (which uses synchronous dispatch and component-level synchronization).
@@ -603,8 +695,165 @@ public final class Ports {
         CacheManager.clear();
     }
 
+    /**
+     * Sets the provider of the caches of {@link Pure} requests. The provider is used for all
+     * OUT ports that are instantiated afterwards. Pass null in order to restore the default
+     * provider, whose caches are striped by the hash codes of the requests (or stored off-heap, see
+     * {@link Pure#offHeapBytes()}).
+     *
+     * @see ResponseCache
+     *
+     * @since 0.6.2
+     */
+    public static void cacheProvider(ResponseCacheProvider provider) {
+        CacheManager.setCacheProvider(provider);
+    }
+
+    /**
+     * Specifies that whenever a message of the given type is sent, the response to the request returned
+     * by the given key extractor is removed from the caches of the given {@link Pure} request type. In contrast
+     * to {@link Pure#clearCacheOn()}, all other cached responses are kept.
+     *
+     * <p> The key extractor may return null, in which case nothing is removed. If it throws an exception,
+     * the caches are cleared entirely.
+     *
+     * @param messageType The type of the event or request that invalidates cached responses.
+     * @param requestType The pure request type whose cached responses are invalidated.
+     * @param keyExtractor Maps a message to the request whose cached response is invalidated.
+     *
+     * @since 0.6.2
+     */
+    public static <M, R> void invalidateCacheOn(
+            Class<M> messageType, Class<R> requestType, Function<? super M, ? extends R> keyExtractor)
+    {
+        CacheManager.registerKeyMapping(messageType, requestType, keyExtractor);
+    }
+
+    /**
+     * Returns the statistics of the caches of the given {@link Pure} request type, accumulated over
+     * all of its OUT ports. If no cache of that type has been created yet, all numbers are 0.
+     *
+     * <p> The statistics are also available via JMX.
+     *
+     * @see CacheStatisticsMXBean
+     *
+     * @since 0.6.2
+     */
+    public static CacheStatistics cacheStatistics(Class<?> requestType) {
+        return CacheManager.getStatistics(requestType);
+    }
+
+    /**
+     * Returns the statistics of the caches of all {@link Pure} request types, accumulated over
+     * all of their OUT ports.
+     *
+     * @see #cacheStatistics(Class)
+     *
+     * @since 0.6.2
+     */
+    public static Map<Class<?>, CacheStatistics> cacheStatistics() {
+        return CacheManager.getStatistics();
+    }
+
+    /**
+     * Writes the contents of the caches of all {@link Pure} request types to the given file, using Java
+     * serialization. See {@link #saveCaches(Path, String, CacheCodec)} for details.
+     *
+     * @since 0.6.2
+     */
+    public static int saveCaches(Path file, String version) {
+        return saveCaches(file, version, null);
+    }
+
+    /**
+     * Writes the contents of the caches of all {@link Pure} request types to the given file, so that they can
+     * be restored by {@link #loadCaches(Path, String, CacheCodec)}, e.g. after a restart. If there are several
+     * caches of the same request type, their contents are merged. The file is replaced atomically if the
+     * file system supports that.
+     *
+     * <p> Only responses that can be encoded by the given codec are written. Caches whose
+     * {@link ResponseCache} does not implement {@link ResponseCache#forEach} are not written at all.
+     *
+     * @param file The snapshot file.
+     * @param version A key that identifies the format of the requests and responses, e.g. the version of
+     *                the application. Snapshots are only restored with the same key.
+     * @param codec The codec that encodes the requests and responses, or null for Java serialization.
+     *
+     * @return The number of responses written.
+     *
+     * @throws java.io.UncheckedIOException If the file cannot be written.
+     *
+     * @since 0.6.2
+     */
+    public static int saveCaches(Path file, String version, CacheCodec codec) {
+        return CacheManager.saveSnapshot(file, version, codec != null ? codec : SerializationCodec.INSTANCE);
+    }
+
+    /**
+     * Restores a snapshot that has been written by {@link #saveCaches(Path, String)}, using Java
+     * serialization. See {@link #loadCaches(Path, String, CacheCodec)} for details.
+     *
+     * @since 0.6.2
+     */
+    public static int loadCaches(Path file, String version) {
+        return loadCaches(file, version, null);
+    }
+
+    /**
+     * Restores a snapshot that has been written by {@link #saveCaches(Path, String, CacheCodec)}. The
+     * responses are put into the existing caches of the respective request types, unless these already
+     * contain responses to the same requests, and into all caches that are created afterwards.
+     * Restored responses keep their age with respect to {@link Pure#ttl()} and {@link Pure#refreshAfter()},
+     * including the time since the snapshot has been written.
+     *
+     * <p> If the file does not exist, or if it has been written with a different version key, nothing is
+     * restored. Responses of request types that do not exist anymore, or whose responses are not cached
+     * anymore, are discarded, as well as responses that have expired and responses that cannot be decoded.
+     *
+     * <p> The file must come from a trusted source, since the codec decodes its contents into objects.
+     * In case of Java serialization, this may execute code of any serializable class on the class path.
+     *
+     * @param file The snapshot file.
+     * @param version The key that must match the key the snapshot has been written with.
+     * @param codec The codec that decodes the requests and responses, or null for Java serialization.
+     *
+     * @return The number of responses read.
+     *
+     * @throws java.io.UncheckedIOException If the file exists but cannot be read.
+     *
+     * @since 0.6.2
+     */
+    public static int loadCaches(Path file, String version, CacheCodec codec) {
+        return CacheManager.loadSnapshot(file, version, codec != null ? codec : SerializationCodec.INSTANCE);
+    }
+
+    /**
+     * Restores the given snapshot and writes the caches back to it when the JVM shuts down, using Java
+     * serialization. See {@link #persistCaches(Path, String, CacheCodec)} for details.
+     *
+     * @since 0.6.2
+     */
+    public static int persistCaches(Path file, String version) {
+        return persistCaches(file, version, null);
+    }
+
+    /**
+     * Restores the given snapshot (see {@link #loadCaches(Path, String, CacheCodec)}) and writes the caches
+     * back to it when the JVM shuts down (see {@link #saveCaches(Path, String, CacheCodec)}). Call this method
+     * during startup in order to shorten the warm-up of the caches after a restart. Calling it again replaces
+     * the settings used on shutdown; {@link #reset()} disables writing the snapshot on shutdown.
+     *
+     * @return The number of responses read.
+     *
+     * @since 0.6.2
+     */
+    public static int persistCaches(Path file, String version, CacheCodec codec) {
+        return CacheManager.persistSnapshot(file, version, codec != null ? codec : SerializationCodec.INSTANCE);
+    }
+
     /**
      * Resets all internal state information, i.e. protocols and domains, and clears all caches.
+     * The default cache provider is restored, and the cache statistics and restored cache snapshots are discarded.
      *
      * @since 0.6.0
      */
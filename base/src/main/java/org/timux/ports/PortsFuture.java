@@ -21,21 +21,30 @@ import org.timux.ports.types.Either3;
 import org.timux.ports.types.Failure;
 import org.timux.ports.types.Nothing;
 
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Represents the future response of a potentially asynchronous request.
  *
  * <p> Whenever you issue an asynchronous request via {@link Request#callF}, you will retrieve
  * an instance of this class. You can access the response via {@link #get()}, {@link #get(long, TimeUnit)},
- * {@link #getNow}, or {@link #getE}.
+ * {@link #getNow}, or {@link #getE}. In order to react to the response without blocking a thread, use
+ * {@link #whenComplete(BiConsumer)} or {@link #toCompletableFuture()}.
  *
- * <p> <em>Instances of PortsFuture are not cancellable.</em> Accordingly, both {@link #cancel} and
- * {@link #isCancelled} always return false.
+ * <p> A request can be cancelled via {@link #cancel} as long as its response is not available. If it is
+ * still queued, it will not be handled at all. If a request is issued with a deadline (see
+ * {@link Request#call(Object, long, TimeUnit)} and {@link Ports#withDeadline(long, TimeUnit, Supplier)}),
+ * waiting for its response ends at the deadline, and the request terminates with a
+ * {@link TimeoutException}.
  *
  * @param <T> The type of the expected response.
  *
@@ -45,32 +54,34 @@ import java.util.function.Function;
 @SuppressWarnings("unchecked")
 public class PortsFuture<T> implements Future<T> {
 
-    private Task task;
-    private T result;
-    private boolean hasReturned;
+    // Either the task is null (the result is known from the start), or the result is provided by the task.
+    private final Task task;
+    private final T result;
 
     private PortsFutureResponseTypeInfo responseTypeInfo;
 
     PortsFuture(T result) {
+        this.task = null;
         this.result = result;
-        hasReturned = true;
     }
 
     PortsFuture(Task task, PortsFutureResponseTypeInfo responseTypeInfo) {
         this.task = task;
+        this.result = null;
         this.responseTypeInfo = responseTypeInfo;
     }
 
     PortsFuture(Throwable throwable, PortsFutureResponseTypeInfo responseTypeInfo) {
         this.task = new Task(throwable);
+        this.result = null;
         this.responseTypeInfo = responseTypeInfo;
     }
 
     /**
      * {@inheritDoc}
      *
-     * <p> This particular implementation of get does not throw a CancellationException since
-     * PortsFutures are not cancellable.
+     * <p> If the response type is an {@link Either} or {@link Either3} with a {@link Failure}, a cancellation
+     * is returned as a failure instead of being thrown.
      *
      * @throws PortsExecutionException if the receiver terminated unexpectedly
      * @throws java.util.concurrent.CancellationException {@inheritDoc}
@@ -78,12 +89,7 @@ public class PortsFuture<T> implements Future<T> {
     @Override
     public T get() {
         try {
-            if (!hasReturned) {
-                result = (T) task.waitForResponse();
-                hasReturned = true;
-            }
-
-            return result;
+            return task != null ? (T) task.waitForResponse() : result;
         } catch (Exception e) {
             switch (responseTypeInfo) {
             case EITHER_X_FAILURE:
@@ -101,8 +107,8 @@ public class PortsFuture<T> implements Future<T> {
     /**
      * {@inheritDoc}
      *
-     * <p> This particular implementation of get does not throw a CancellationException since
-     * PortsFutures are not cancellable.
+     * <p> If the response type is an {@link Either} or {@link Either3} with a {@link Failure}, a cancellation
+     * is returned as a failure instead of being thrown.
      *
      * @throws PortsExecutionException if the receiver terminated unexpectedly
      * @throws java.util.concurrent.CancellationException {@inheritDoc}
@@ -110,12 +116,7 @@ public class PortsFuture<T> implements Future<T> {
     @Override
     public T get(long timeout, TimeUnit unit) throws TimeoutException {
         try {
-            if (!hasReturned) {
-                result = (T) task.waitForResponse(timeout, unit);
-                hasReturned = true;
-            }
-
-            return result;
+            return task != null ? (T) task.waitForResponse(timeout, unit) : result;
         } catch (Exception e) {
             switch (responseTypeInfo) {
             case EITHER_X_FAILURE:
@@ -168,14 +169,12 @@ public class PortsFuture<T> implements Future<T> {
      * @throws PortsExecutionException If the receiver terminated unexpectedly.
      */
     public T getNow(T defaultValue) {
-        if (hasReturned) {
+        if (task == null) {
             return result;
         }
 
         if (task.hasReturned()) {
-            result = (T) task.waitForResponse();
-            hasReturned = true;
-            return result;
+            return (T) task.waitForResponse();
         }
 
         return defaultValue;
@@ -188,15 +187,13 @@ public class PortsFuture<T> implements Future<T> {
      * <p> <em>This call is non-blocking.</em>
      */
     public <E> Either3<T, E, Failure> getE(E elseValue) {
-        if (hasReturned) {
+        if (task == null) {
             return Either3.a(result);
         }
 
         if (task.hasReturned()) {
             try {
-                result = (T) task.waitForResponse();
-                hasReturned = true;
-                return Either3.a(result);
+                return Either3.a((T) task.waitForResponse());
             } catch (Exception e) {
                 return Either3.c(Failure.of(e));
             }
@@ -214,14 +211,12 @@ public class PortsFuture<T> implements Future<T> {
      * @throws PortsExecutionException If the receiver terminated unexpectedly.
      */
     public <R> R map(Function<T, R> mapper, R elseValue) {
-        if (hasReturned) {
+        if (task == null) {
             return mapper.apply(result);
         }
 
         if (task.hasReturned()) {
-            result = (T) task.waitForResponse();
-            hasReturned = true;
-            return mapper.apply(result);
+            return mapper.apply((T) task.waitForResponse());
         }
 
         return elseValue;
@@ -327,24 +322,126 @@ public class PortsFuture<T> implements Future<T> {
     }
 
     /**
-     * Instances of PortsFuture are not cancellable, so this method will always return false and do nothing.
+     * Calls the given action as soon as the response is available, with the response and null, or if the
+     * receiver terminated with an exception, with null and the {@link PortsExecutionException} (or the
+     * {@link CancellationException} if the request has been cancelled). If the
+     * response type is an {@link Either} or {@link Either3} with a {@link Failure}, the exception is
+     * provided as a response instead, exactly as with {@link #get()}.
+     *
+     * <p> If the response is already available, the action is called immediately within the calling
+     * thread. Otherwise, it is called within the thread that completes the request, so it should return
+     * quickly. Exceptions thrown by the action are printed, but not propagated.
+     *
+     * <p> <em>This call is non-blocking.</em>
+     *
+     * @return This future.
+     *
+     * @since 0.6.2
+     */
+    public PortsFuture<T> whenComplete(BiConsumer<? super T, ? super Throwable> action) {
+        whenComplete(() -> {
+            T response;
+            RuntimeException exception = null;
+            Throwable throwable = getThrowable();
+
+            if (throwable == null) {
+                response = getCompletedResponse();
+            } else {
+                if (isCancelled()) {
+                    exception = (CancellationException) throwable;
+                } else {
+                    exception = throwable instanceof PortsExecutionException
+                            ? (PortsExecutionException) throwable
+                            : new PortsExecutionException(throwable);
+                }
+
+                switch (responseTypeInfo) {
+                case EITHER_X_FAILURE:
+                    response = (T) Either.b(Failure.of(exception));
+                    exception = null;
+                    break;
+
+                case EITHER3_X_Y_FAILURE:
+                    response = (T) Either3.c(Failure.of(exception));
+                    exception = null;
+                    break;
+
+                case OTHER:
+                    response = null;
+                    break;
+
+                default:
+                    throw new IllegalStateException("unhandled response type info: " + responseTypeInfo);
+                }
+            }
+
+            try {
+                action.accept(response, exception);
+            } catch (Exception e) {
+                Ports.printError("completion callback terminated with an exception:");
+                e.printStackTrace();
+            }
+        });
+
+        return this;
+    }
+
+    /**
+     * Returns a {@link CompletableFuture} that is completed with the response, or completed exceptionally
+     * with the {@link PortsExecutionException} if the receiver terminated with an exception (see
+     * {@link #whenComplete(BiConsumer)}). Use it in order to chain requests, or to combine them with
+     * other asynchronous computations, via the {@link CompletionStage} methods without blocking a thread.
+     *
+     * <p> Completing or cancelling the returned future does not affect this one.
+     *
+     * <p> <em>This call is non-blocking.</em>
+     *
+     * @since 0.6.2
+     */
+    public CompletableFuture<T> toCompletableFuture() {
+        CompletableFuture<T> completableFuture = new CompletableFuture<>();
+
+        whenComplete((response, throwable) -> {
+            if (throwable != null) {
+                completableFuture.completeExceptionally(throwable);
+            } else {
+                completableFuture.complete(response);
+            }
+        });
+
+        return completableFuture;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p> If the request is still queued, it is skipped by the receiving {@link Domain}, and its slot in a
+     * bounded queue is released immediately. If it is being handled and 'mayInterruptIfRunning' is true, the
+     * thread handling it is interrupted. The interrupt is cleared after the handler has returned.
+     *
+     * <p> If the request has been coalesced with an equal one (see {@link Pure}) or is handled as part of
+     * a batch (see {@link Batch}), only this future is cancelled. The other requests are not affected.
+     *
+     * @since 0.6.2
      */
     @Override
     public boolean cancel(boolean mayInterruptIfRunning) {
-        return false;
+        return task != null && task.cancel(mayInterruptIfRunning);
     }
 
     @Override
     public boolean isDone() {
-        return hasReturned || task.hasReturned();
+        return task == null || task.hasReturned();
     }
 
     /**
-     * Instances of PortsFuture are not cancellable, so this method will always return false.
+     * {@inheritDoc}
+     *
+     * @since 0.6.2
      */
     @Override
     public boolean isCancelled() {
-        return false;
+        return task != null && task.isCancelled();
     }
 
     /**
@@ -360,11 +457,38 @@ public class PortsFuture<T> implements Future<T> {
         return task != null && task.hasReturned() && task.getThrowable() != null;
     }
 
+    /**
+     * Runs the given listener as soon as the response is available (or the receiver has terminated
+     * with an exception).
+     */
+    void whenComplete(Runnable listener) {
+        if (task == null) {
+            listener.run();
+        } else {
+            task.whenComplete(listener);
+        }
+    }
+
+    /**
+     * Returns the exception the receiver terminated with, or null. Must only be called after completion.
+     */
+    Throwable getThrowable() {
+        return task != null ? task.getThrowable() : null;
+    }
+
+    /**
+     * Returns the response without modifying the state of this future, so that it can be called
+     * from other threads than the owner. Must only be called after completion.
+     */
+    T getCompletedResponse() {
+        return task != null ? (T) task.getResponse() : result;
+    }
+
     @Override
     public String toString() {
         return "PortsFuture{"
                 + (isDone()
-                ? "result='" + (task != null && task.getThrowable() != null ? task.getThrowable().getMessage() : task.getResponse()) + "'}"
+                ? "result='" + (getThrowable() != null ? getThrowable().getMessage() : getCompletedResponse()) + "'}"
                 : "no result available}");
     }
 }
@@ -20,6 +20,7 @@ import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Use this annotation on a request type in order to indicate that (a) the corresponding call
@@ -30,8 +31,18 @@ import java.lang.annotation.Target;
  * performance. However, Ports will never cache failures. Caching can be disabled by
  * setting this annotation's {@link #cache()} property to false.
  *
+ * <p> If caching is enabled, equal requests that are sent concurrently and miss the cache are
+ * coalesced, i.e. only one of them is handled by the receiver and all senders get its response.
+ *
  * <p> Use the {@link #clearCacheOn()} property to specify event types that when triggered
- * cause the cache to be cleared.
+ * cause the cache to be cleared. Use {@link Ports#invalidateCacheOn} instead if a message only
+ * affects the response to a particular request.
+ *
+ * <p> The size of the cache, the lifetime of the cached responses, and the eviction strategy
+ * can be configured using the {@link #capacity()}, {@link #ttl()}, and {@link #eviction()}
+ * properties. Large responses can be kept off-heap using the {@link #offHeapBytes()} property.
+ * The cache implementation itself can be replaced using
+ * {@link Ports#cacheProvider(ResponseCacheProvider)}.
  *
  * <p> Be aware that you must not use this annotation on request types whose handlers
  * perform output or transform the system state in another significant way.
@@ -58,4 +69,82 @@ public @interface Pure {
      * cause the request cache to be cleared.
      */
     Class<?>[] clearCacheOn() default {};
+
+    /**
+     * Set this property to true in order to share the cache among all OUT ports of this request type
+     * that are connected to the same receiver. This way, equal requests from different senders (e.g.
+     * from different user sessions) are answered from the same cache. By default, each OUT port has
+     * its own cache.
+     *
+     * <p> Note that a shared cache is only available while the OUT port is connected.
+     *
+     * @since 0.6.2
+     */
+    boolean shared() default false;
+
+    /**
+     * The maximum number of responses to be cached per OUT port (or per receiver, if the cache is
+     * {@link #shared()}). The default is 4.
+     *
+     * @since 0.6.2
+     */
+    int capacity() default 4;
+
+    /**
+     * The time after which a cached response expires, in units of {@link #ttlUnit()}.
+     * The default is 0, which means that cached responses do not expire.
+     *
+     * @since 0.6.2
+     */
+    long ttl() default 0;
+
+    /**
+     * The time after which a cached response is recomputed in the background, in units of {@link #ttlUnit()}.
+     * When a cached response that is older than this is requested, it is still returned (i.e. it is served
+     * stale), but the request is also sent to the receiver again, in a separate thread, in order to replace
+     * the cached response. This way, senders do not have to wait when a response is about to expire.
+     *
+     * <p> If a {@link #ttl()} is specified, this value must be less than that. The default is 0, which
+     * means that cached responses are not refreshed.
+     *
+     * @since 0.6.2
+     */
+    long refreshAfter() default 0;
+
+    /**
+     * The time unit of {@link #ttl()} and {@link #refreshAfter()}. The default is {@link TimeUnit#SECONDS}.
+     *
+     * @since 0.6.2
+     */
+    TimeUnit ttlUnit() default TimeUnit.SECONDS;
+
+    /**
+     * The policy that determines which responses are discarded when the cache is full.
+     * The default is {@link EvictionPolicy#LRU}.
+     *
+     * @since 0.6.2
+     */
+    EvictionPolicy eviction() default EvictionPolicy.LRU;
+
+    /**
+     * The number of bytes of off-heap memory the cached responses may occupy per cache. If this is
+     * greater than 0, the responses are encoded by the {@link #codec()} and stored outside of the Java
+     * heap, so that large caches do not cause long garbage collection pauses. The memory is allocated
+     * on demand, in blocks of 1 KiB.
+     *
+     * <p> Off-heap caches always use the {@link EvictionPolicy#LRU} policy, and each cache hit returns a
+     * newly decoded copy of the response. The default is 0, which means that the responses are kept on
+     * the heap.
+     *
+     * @since 0.6.2
+     */
+    long offHeapBytes() default 0;
+
+    /**
+     * The codec that converts the responses to bytes and back if the cache is stored off-heap (see
+     * {@link #offHeapBytes()}). The default codec uses Java serialization.
+     *
+     * @since 0.6.2
+     */
+    Class<? extends CacheCodec> codec() default CacheCodec.class;
 }
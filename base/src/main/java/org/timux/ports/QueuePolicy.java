@@ -0,0 +1,45 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports;
+
+/**
+ * An enum providing options for the way queued messages are distributed among the threads
+ * of a {@link Domain} with {@link DispatchPolicy#PARALLEL} dispatch.
+ *
+ * @see Ports#domain(String, DispatchPolicy, SyncPolicy, QueuePolicy)
+ *
+ * @since 0.6.2
+ */
+public enum QueuePolicy {
+
+    /**
+     * Specifies that all threads of the domain take their messages from a single shared queue.
+     * In {@link DispatchPolicy#ASYNCHRONOUS} domains, which have only one thread, this queue is lock-free.
+     *
+     * <p> This is the default setting.
+     */
+    SHARED_QUEUE,
+
+    /**
+     * Specifies that each thread of the domain has its own queue and that idle threads take
+     * (i.e. "steal") messages from the queues of other threads.
+     *
+     * <p> This setting reduces contention between the threads when messages are sent at a high rate
+     * by many threads. It is only applicable to domains with {@link DispatchPolicy#PARALLEL} dispatch.
+     */
+    WORK_STEALING
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports;
+
+/**
+ * An enum providing options for the way a {@link Domain} handles new messages when its queue
+ * is full.
+ *
+ * @see DomainBuilder#maxQueueDepth
+ *
+ * @since 0.6.2
+ */
+public enum RejectionPolicy {
+
+    /**
+     * Specifies that the sender shall be blocked until there is room in the queue.
+     *
+     * <p> This is the default setting.
+     */
+    BLOCK,
+
+    /**
+     * Specifies that the message shall be processed within the thread of the sender, as if
+     * the domain were {@link DispatchPolicy#SYNCHRONOUS}.
+     */
+    CALLER_RUNS,
+
+    /**
+     * Specifies that the oldest message in the queue shall be discarded in favor of the new one.
+     * A discarded request terminates with a {@link TaskRejectedException}. (With
+     * {@link QueuePolicy#WORK_STEALING}, the discarded message is only approximately the oldest one.)
+     */
+    DROP_OLDEST,
+
+    /**
+     * Specifies that the new message shall be rejected with a {@link TaskRejectedException}. Events
+     * throw the exception when they are triggered, requests terminate with it.
+     */
+    FAIL_FAST
+}
@@ -21,12 +21,14 @@ import org.timux.ports.types.Either3;
 import org.timux.ports.types.Failure;
 
 import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.function.IntFunction;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -45,22 +47,57 @@ import java.util.stream.IntStream;
  */
 public class Request<I, O> {
 
-    private Function<I, O> port;
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    /**
+     * An immutable snapshot of the connection of this port together with the domain of the receiver.
+     * Any change creates a new snapshot, so that the ports can be used without locks.
+     */
+    private static class Binding<I, O> {
+
+        final Function<I, O> port;
+        final Object receiver;
+        final Domain receiverDomain;
+        final Function<I, O> wrappedFunction;
+        final int domainVersion;
+        final RequestCache<I, O> sharedCache;
+
+        Binding(
+                Function<I, O> port,
+                Object receiver,
+                Domain receiverDomain,
+                Function<I, O> wrappedFunction,
+                int domainVersion,
+                RequestCache<I, O> sharedCache)
+        {
+            this.port = port;
+            this.receiver = receiver;
+            this.receiverDomain = receiverDomain;
+            this.wrappedFunction = wrappedFunction;
+            this.domainVersion = domainVersion;
+            this.sharedCache = sharedCache;
+        }
+    }
+
     private String requestTypeName;
     private Object owner;
-    private Object receiver;
     private String memberName;
 
     private PortsFutureResponseTypeInfo responseTypeInfo;
 
-    private Domain receiverDomain;
-    private Function<I, O> wrappedFunction;
-    private int domainVersion = -1;
+    private volatile Binding<I, O> binding;
 
-    private final RequestCache<I, PortsFuture<O>> cache;
+    // Only used if the cache is not shared, otherwise the cache of the receiver is held by the binding.
+    private final RequestCache<I, O> portCache;
+
+    private final boolean isCacheShared;
+    private final BiConsumer<RequestCache<I, O>, I> refresher = this::refresh;
+    private Class<?> requestType;
+    private Pure pureAnno;
 
     public Request() {
-        cache = null;
+        portCache = null;
+        isCacheShared = false;
     }
 
     Request(String requestTypeName, String responseTypeName, String memberName, Object owner) {
@@ -73,11 +110,10 @@ public class Request<I, O> {
             Class<?> requestType = getClass().getClassLoader().loadClass(requestTypeName);
             Pure pureAnno = requestType.getDeclaredAnnotation(Pure.class);
             boolean isCacheEnabled = pureAnno != null && pureAnno.cache();
-            this.cache = isCacheEnabled ? new RequestCache<>(4, requestType) : null;
-
-            if (isCacheEnabled) {
-                CacheManager.registerRequestPort(this, pureAnno);
-            }
+            this.isCacheShared = isCacheEnabled && pureAnno.shared();
+            this.portCache = isCacheEnabled && !isCacheShared ? CacheManager.createCache(requestType, pureAnno) : null;
+            this.requestType = requestType;
+            this.pureAnno = pureAnno;
         } catch (ClassNotFoundException e) {
             throw new RuntimeException(e);
         }
@@ -103,9 +139,12 @@ public class Request<I, O> {
             throw new IllegalArgumentException("port must not be null");
         }
 
-        this.port = port;
-        this.receiver = receiver;
-        this.domainVersion = -1;
+        RequestCache<I, O> sharedCache = isCacheShared
+                ? CacheManager.getSharedCache(requestType, receiver, pureAnno)
+                : null;
+
+        // The domain of the receiver is not known yet, so it has to be resolved on the next call.
+        this.binding = new Binding<>(port, receiver, null, null, -1, sharedCache);
     }
 
     @SuppressWarnings("unchecked")
@@ -114,17 +153,30 @@ public class Request<I, O> {
             throw new IllegalArgumentException("port must not be null");
         }
 
-        Function<I, O> portFunction = x -> {
-            try {
-                return (O) portMethod.invoke(methodOwner, x);
-            } catch (IllegalAccessException e) {
-                throw new PortsExecutionException(e);
-            } catch (InvocationTargetException e) {
-                if (e.getCause() instanceof PortsExecutionException) {
-                    throw (PortsExecutionException) e.getCause();
+        MethodInvoker invoker = MethodInvokers.get(portMethod);
+
+        if (portMethod.getAnnotation(Batch.class) != null) {
+            Function<List<I>, List<O>> batchHandler = x -> {
+                try {
+                    return (List<O>) invoker.invoke(methodOwner, x);
+                } catch (PortsExecutionException e) {
+                    throw e;
+                } catch (Throwable t) {
+                    throw new PortsExecutionException(t);
                 }
+            };
+
+            connect(BatchPort.forRequests(portMethod, batchHandler), methodOwner);
+            return;
+        }
 
-                throw new PortsExecutionException(e.getCause());
+        Function<I, O> portFunction = x -> {
+            try {
+                return (O) invoker.invoke(methodOwner, x);
+            } catch (PortsExecutionException e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new PortsExecutionException(t);
             }
         };
 
@@ -154,12 +206,8 @@ public class Request<I, O> {
     /**
      * Disconnects this OUT port.
      */
-    public void disconnect() {
-        port = null;
-        receiver = null;
-        receiverDomain = null;
-        domainVersion = -1;
-        wrappedFunction = null;
+    public synchronized void disconnect() {
+        binding = null;
     }
 
     /**
@@ -173,57 +221,51 @@ public class Request<I, O> {
      * @see #callF
      * @see Domain
      */
-    @SuppressWarnings("unchecked")
     public O call(I payload) {
-        CacheManager.onMessageSent(payload.getClass());
+        CacheManager.onMessageSent(payload);
+
+        RequestCache<I, O> cache = getCache();
+
+        if (cache == null) {
+            Binding<I, O> b = getDirectBinding();
+
+            if (b != null) {
+                return callDirectly(b, payload);
+            }
+        }
 
-        PortsFuture<O> cachedFuture = cache != null ? cache.get(payload) : null;
+        O cachedResponse = cache != null ? cache.get(payload, refresher) : null;
 
-        if (cachedFuture != null) {
+        if (cachedResponse != null) {
             if (Protocol.areProtocolsActive) {
                 try {
                     Protocol.onDataSent(requestTypeName, owner, payload);
-                    Protocol.onDataReceived(requestTypeName, owner, cachedFuture);
+                    Protocol.onDataReceived(requestTypeName, owner, cachedResponse);
                 } catch (Exception e) {
                     return new PortsFuture<O>(e, responseTypeInfo).get();
                 }
             }
 
-            return cachedFuture.get();
+            return cachedResponse;
         }
 
-        PortsFuture<O> future = callF_internal(payload);
-        O response = future.get();
-
-        if (cache != null) {
-            if (future.hasExceptionOccurred()) {
-                return response;
-            }
-
-            switch (responseTypeInfo) {
-            case EITHER_X_FAILURE:
-                if (((Either<?, Failure>) response).isFailure()) {
-                    return response;
-                }
-                break;
-
-            case EITHER3_X_Y_FAILURE:
-                if (((Either3<?, ?, Failure>) response).isFailure()) {
-                    return response;
-                }
-                break;
-
-            case OTHER:
-                break;
-
-            default:
-                throw new IllegalStateException("unhandled type info: " + responseTypeInfo);
-            }
-
-            cache.put(payload, future);
-        }
+        return (cache != null ? load(cache, payload) : callF_internal(payload)).get();
+    }
 
-        return response;
+    /**
+     * Sends the given payload to the connected IN port like {@link #call(Object)}, but with a deadline after the
+     * provided timeout (see {@link Ports#withDeadline(long, TimeUnit, Supplier)}). The deadline also applies to
+     * the requests that are issued while handling this one.
+     *
+     * @param payload The payload to be sent.
+     * @return The response of the receiver.
+     * @throws PortsExecutionException   If the receiver terminated unexpectedly, or if the deadline has passed
+     *                                   (with a {@link java.util.concurrent.TimeoutException} as the cause).
+     * @throws PortNotConnectedException If this port is not connected.
+     * @since 0.6.2
+     */
+    public O call(I payload, long timeout, TimeUnit unit) {
+        return Deadline.within(timeout, unit, () -> call(payload));
     }
 
     /**
@@ -238,35 +280,38 @@ public class Request<I, O> {
      * @see Domain
      */
     public Either<O, Failure> callE(I payload) {
-        CacheManager.onMessageSent(payload.getClass());
+        CacheManager.onMessageSent(payload);
 
-        PortsFuture<O> cachedFuture = cache != null ? cache.get(payload) : null;
+        RequestCache<I, O> cache = getCache();
 
-        if (cachedFuture != null) {
-            if (Protocol.areProtocolsActive) {
+        if (cache == null) {
+            Binding<I, O> b = getDirectBinding();
+
+            if (b != null) {
                 try {
-                    Protocol.onDataSent(requestTypeName, owner, payload);
-                    Protocol.onDataReceived(requestTypeName, owner, cachedFuture);
+                    return Either.a(callDirectly(b, payload));
                 } catch (Exception e) {
-                    return new PortsFuture<O>(e, responseTypeInfo).getE();
+                    return Either.b(Failure.of(e));
                 }
             }
-
-            return cachedFuture.getE();
         }
 
-        PortsFuture<O> future = callF_internal(payload);
-        Either<O, Failure> response = future.getE();
+        O cachedResponse = cache != null ? cache.get(payload, refresher) : null;
 
-        if (cache != null) {
-            if (response.isFailure()) {
-                return response;
+        if (cachedResponse != null) {
+            if (Protocol.areProtocolsActive) {
+                try {
+                    Protocol.onDataSent(requestTypeName, owner, payload);
+                    Protocol.onDataReceived(requestTypeName, owner, cachedResponse);
+                } catch (Exception e) {
+                    return new PortsFuture<O>(e, responseTypeInfo).getE();
+                }
             }
 
-            cache.put(payload, future);
+            return Either.a(cachedResponse);
         }
 
-        return response;
+        return (cache != null ? load(cache, payload) : callF_internal(payload)).getE();
     }
 
     /**
@@ -281,60 +326,235 @@ public class Request<I, O> {
      * @see Domain
      * @since 0.5.0
      */
-    @SuppressWarnings("unchecked")
     public PortsFuture<O> callF(I payload) {
-        CacheManager.onMessageSent(payload.getClass());
+        CacheManager.onMessageSent(payload);
 
-        PortsFuture<O> cachedFuture = cache != null ? cache.get(payload) : null;
+        RequestCache<I, O> cache = getCache();
+        O cachedResponse = cache != null ? cache.get(payload, refresher) : null;
 
-        if (cachedFuture != null) {
+        if (cachedResponse != null) {
             if (Protocol.areProtocolsActive) {
                 try {
                     Protocol.onDataSent(requestTypeName, owner, payload);
-                    Protocol.onDataReceived(requestTypeName, owner, cachedFuture);
+                    Protocol.onDataReceived(requestTypeName, owner, cachedResponse);
                 } catch (Exception e) {
                     return new PortsFuture<>(e, responseTypeInfo);
                 }
             }
 
-            return cachedFuture;
+            return new PortsFuture<>(cachedResponse);
         }
 
-        PortsFuture<O> future = callF_internal(payload);
+        return cache != null ? load(cache, payload) : callF_internal(payload);
+    }
 
-        if (cache != null) {
-            O maybeResponse = future.getNow(null);
+    /**
+     * Sends the given payload to the connected IN port like {@link #callF(Object)}, but with a deadline after the
+     * provided timeout (see {@link Ports#withDeadline(long, TimeUnit, Supplier)}). Waiting for the response via
+     * the returned future ends at the deadline at the latest.
+     *
+     * @since 0.6.2
+     */
+    public PortsFuture<O> callF(I payload, long timeout, TimeUnit unit) {
+        return Deadline.within(timeout, unit, () -> callF(payload));
+    }
+
+    /**
+     * Handles a cache miss. Concurrent equal requests are coalesced: only the first one is sent to the
+     * receiver, the others wait for its response.
+     */
+    private PortsFuture<O> load(RequestCache<I, O> cache, I payload) {
+        Task promise = new Task();
+        Task leadingPromise = cache.join(payload, promise);
+
+        if (leadingPromise != null) {
+            return follow(cache, payload, leadingPromise);
+        }
+
+        return lead(cache, payload, promise);
+    }
+
+    /**
+     * Waits for the response to an equal request that is already in flight. Each follower has its own
+     * promise, so that it can be cancelled and can expire on its own, with its own deadline. If the
+     * leading request is cancelled or expires, the follower sends the request itself.
+     */
+    private PortsFuture<O> follow(RequestCache<I, O> cache, I payload, Task leadingPromise) {
+        Deadline deadline = Deadline.current();
+        Task promise = new Task(deadline);
+
+        leadingPromise.whenComplete(() -> {
+            if (promise.hasReturned()) {
+                // The follower has been cancelled or has expired in the meantime.
+                return;
+            }
 
-            if (!future.hasExceptionOccurred() && maybeResponse != null) {
-                switch (responseTypeInfo) {
-                case EITHER_X_FAILURE:
-                    if (((Either<?, Failure>) maybeResponse).isFailure()) {
-                        return future;
-                    }
-                    break;
+            if (!leadingPromise.isCancelled()) {
+                if (leadingPromise.getThrowable() != null) {
+                    promise.reject(leadingPromise.getThrowable());
+                } else {
+                    promise.complete(leadingPromise.getResponse());
+                }
 
-                case EITHER3_X_Y_FAILURE:
-                    if (((Either3<?, ?, Failure>) maybeResponse).isFailure()) {
-                        return future;
-                    }
-                    break;
+                return;
+            }
 
-                case OTHER:
-                    break;
+            // Not within the completing thread, which may be a worker of the receiver or the cancelling sender.
+            CacheManager.submitRefresh(() -> {
+                Deadline previousDeadline = Deadline.enter(deadline);
 
-                default:
-                    throw new IllegalStateException("unhandled type info: " + responseTypeInfo);
+                try {
+                    PortsFuture<O> future = load(cache, payload);
+
+                    future.whenComplete(() -> {
+                        if (future.getThrowable() != null) {
+                            promise.reject(future.getThrowable());
+                        } else {
+                            promise.complete(future.getCompletedResponse());
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    promise.reject(e);
+                } finally {
+                    Deadline.exit(previousDeadline);
                 }
+            });
+        });
+
+        return new PortsFuture<>(promise, responseTypeInfo);
+    }
+
+    /**
+     * Sends the payload to the receiver in the background in order to replace a cached response that is
+     * due for a refresh. The old response stays in the cache until then.
+     */
+    private void refresh(RequestCache<I, O> cache, I payload) {
+        CacheManager.submitRefresh(() -> {
+            if (!cache.isRefreshDue(payload)) {
+                // Another refresh has completed in the meantime.
+                return;
+            }
 
-                cache.put(payload, future);
+            Task promise = new Task();
+
+            if (cache.join(payload, promise) != null) {
+                // The response is already being recomputed.
+                return;
             }
 
-            return future;
+            try {
+                lead(cache, payload, promise);
+            } catch (RuntimeException e) {
+                // The promise has been rejected, and the old response is kept until it expires.
+            }
+        });
+    }
+
+    private PortsFuture<O> lead(RequestCache<I, O> cache, I payload, Task promise) {
+        Deadline deadline = Deadline.current();
+        int epoch = cache.getEpoch();
+        long startNanos = System.nanoTime();
+        PortsFuture<O> future;
+
+        try {
+            future = callF_internal(payload);
+        } catch (RuntimeException e) {
+            cache.leave(payload, promise);
+            promise.reject(e);
+            throw e;
         }
 
+        future.whenComplete(() -> {
+            Throwable throwable = future.getThrowable();
+            O response = throwable == null ? future.getCompletedResponse() : null;
+
+            // A response computed before the cache has been cleared may be outdated.
+            if (throwable == null && isCacheable(response) && cache.getEpoch() == epoch) {
+                cache.put(payload, response, System.nanoTime() - startNanos);
+            }
+
+            // Leave only after the put, otherwise another equal request could miss both the cache and this flight.
+            cache.leave(payload, promise);
+
+            if (future.isCancelled() || (throwable != null && deadline != null && deadline.isExceeded())) {
+                // The failure only concerns the leading request, so the followers send the request themselves.
+                promise.cancel(false);
+            } else if (throwable != null) {
+                promise.reject(throwable);
+            } else {
+                promise.complete(response);
+            }
+        });
+
         return future;
     }
 
+    private RequestCache<I, O> getCache() {
+        if (!isCacheShared) {
+            return portCache;
+        }
+
+        Binding<I, O> b = binding;
+        return b != null ? b.sharedCache : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean isCacheable(O response) {
+        if (response == null) {
+            return false;
+        }
+
+        switch (responseTypeInfo) {
+        case EITHER_X_FAILURE:
+            return !((Either<?, Failure>) response).isFailure();
+
+        case EITHER3_X_Y_FAILURE:
+            return !((Either3<?, ?, Failure>) response).isFailure();
+
+        case OTHER:
+            return true;
+
+        default:
+            throw new IllegalStateException("unhandled type info: " + responseTypeInfo);
+        }
+    }
+
+    /**
+     * Returns the binding if the request can be delivered by a plain method call, i.e. if the receiver is
+     * in a synchronous domain without synchronization and no protocols are active, otherwise null.
+     * This way, neither a task nor a future has to be created.
+     */
+    private Binding<I, O> getDirectBinding() {
+        if (Protocol.areProtocolsActive) {
+            return null;
+        }
+
+        Binding<I, O> b = binding;
+
+        if (b == null) {
+            return null;
+        }
+
+        if (b.domainVersion != DomainManager.getCurrentVersion()) {
+            b = resolveDomain(b);
+        }
+
+        return b.receiverDomain.isDirect() ? b : null;
+    }
+
+    private O callDirectly(Binding<I, O> b, I payload) {
+        if (Deadline.isCurrentDeadlineExceeded()) {
+            return new PortsFuture<O>(Deadline.newTimeoutException(), responseTypeInfo).get();
+        }
+
+        try {
+            return b.wrappedFunction.apply(payload);
+        } catch (Exception e) {
+            // The exceptional case is rare, so it is fine to handle it like any other failed request.
+            return new PortsFuture<O>(e, responseTypeInfo).get();
+        }
+    }
+
     private PortsFuture<O> callF_internal(I payload) {
         if (Protocol.areProtocolsActive) {
             try {
@@ -352,22 +572,39 @@ public class Request<I, O> {
             }
         }
 
-        if (port == null) {
+        Binding<I, O> b = binding;
+
+        if (b == null) {
             throw new PortNotConnectedException(memberName, owner.getClass().getName());
         }
 
-        synchronized (this) {
-            if (domainVersion != DomainManager.getCurrentVersion()) {
-                domainVersion = DomainManager.getCurrentVersion();
-                receiverDomain = DomainManager.getDomain(receiver);
-                wrappedFunction = getWrappedFunctionForProtocols();
-            }
+        if (b.domainVersion != DomainManager.getCurrentVersion()) {
+            b = resolveDomain(b);
         }
 
-        return receiverDomain.dispatch(wrappedFunction, payload, owner, receiver, responseTypeInfo);
+        return b.receiverDomain.dispatch(b.wrappedFunction, payload, owner, b.receiver, responseTypeInfo);
     }
 
-    private Function<I, O> getWrappedFunctionForProtocols() {
+    private synchronized Binding<I, O> resolveDomain(Binding<I, O> b) {
+        DomainManager.Topology topology = DomainManager.getTopology();
+
+        Binding<I, O> newBinding = new Binding<>(
+                b.port,
+                b.receiver,
+                topology.getDomain(b.receiver),
+                getWrappedFunctionForProtocols(b.port),
+                topology.getVersion(),
+                b.sharedCache);
+
+        if (binding == b) {
+            // Otherwise, this port has been (re)connected or disconnected in the meantime.
+            binding = newBinding;
+        }
+
+        return newBinding;
+    }
+
+    private Function<I, O> getWrappedFunctionForProtocols(Function<I, O> port) {
         return Protocol.areProtocolsActive
                 ? (x -> {
             O response = port.apply(x);
@@ -432,13 +669,124 @@ public class Request<I, O> {
     }
 
     /**
-     * Returns true if this OUT port is connected to an IN port, false otherwise.
+     * Submits multiple requests at once like {@link #fork(int, IntFunction)}, but in chunks: the requests are
+     * split into a number of chunks that matches the parallelism of the {@link Domain} of the receiver, and each
+     * chunk is processed as a single task that handles its requests one after the other. This avoids the overhead
+     * of one task and one future per request, which dominates for large numbers of fine-grained requests.
+     *
+     * <p> The payload provider is called by the sender before any request is submitted. If protocols are active,
+     * if the responses are cached (see {@link Pure}), or if the receiver is a {@link Batch} handler, the requests
+     * are sent one by one.
+     *
+     * @returns A {@link ChunkedFork} instance representing the requests whose responses will be received
+     * in the future.
+     * @since 0.6.2
      */
-    public boolean isConnected() {
-        return port != null;
+    public ChunkedFork<O> forkChunked(int endIndexExclusive, IntFunction<I> payloadProvider) {
+        return forkChunked(endIndexExclusive, -1, payloadProvider);
+    }
+
+    /**
+     * Submits multiple requests at once in chunks of the given size (the last chunk may be smaller), see
+     * {@link #forkChunked(int, IntFunction)}.
+     *
+     * @since 0.6.2
+     */
+    public ChunkedFork<O> forkChunked(int endIndexExclusive, int chunkSize, IntFunction<I> payloadProvider) {
+        if (chunkSize < 1 && chunkSize != -1) {
+            throw new IllegalArgumentException("chunk size must be at least 1: " + chunkSize);
+        }
+
+        Object[] payloads = new Object[endIndexExclusive];
+
+        for (int i = 0; i < payloads.length; i++) {
+            payloads[i] = payloadProvider.apply(i);
+        }
+
+        Object[] responses = new Object[payloads.length];
+
+        Binding<I, O> currentBinding = binding;
+
+        // Requests to a batch handler are sent one by one as well, so that they are collected into batches.
+        if (Protocol.areProtocolsActive || getCache() != null || (currentBinding != null && currentBinding.port instanceof BatchPort)) {
+            PortsFuture<?>[] futures = new PortsFuture<?>[payloads.length];
+
+            for (int i = 0; i < payloads.length; i++) {
+                @SuppressWarnings("unchecked")
+                I payload = (I) payloads[i];
+
+                futures[i] = callF(payload);
+            }
+
+            return new ChunkedFork<>(futures, true, responses);
+        }
+
+        Binding<I, O> b = currentBinding;
+
+        if (b == null) {
+            throw new PortNotConnectedException(memberName, owner.getClass().getName());
+        }
+
+        if (b.domainVersion != DomainManager.getCurrentVersion()) {
+            b = resolveDomain(b);
+        }
+
+        for (Object payload : payloads) {
+            CacheManager.onMessageSent(payload);
+        }
+
+        if (chunkSize == -1) {
+            int parallelism = b.receiverDomain.getParallelism();
+
+            // A few chunks per thread even out the differences in processing time between the chunks.
+            int numberOfChunks = parallelism > 1 ? CHUNKS_PER_THREAD * parallelism : 1;
+
+            chunkSize = Math.max(1, (payloads.length + numberOfChunks - 1) / numberOfChunks);
+        }
+
+        PortsFuture<?>[] chunks = new PortsFuture<?>[(payloads.length + chunkSize - 1) / chunkSize];
+        Function<I, O> port = b.wrappedFunction;
+
+        for (int i = 0; i < chunks.length; i++) {
+            int startIndex = i * chunkSize;
+            int endIndex = Math.min(payloads.length, startIndex + chunkSize);
+
+            chunks[i] = b.receiverDomain.dispatch(
+                    (Integer chunkIndex) -> processChunk(port, payloads, responses, startIndex, endIndex),
+                    i,
+                    owner,
+                    b.receiver,
+                    PortsFutureResponseTypeInfo.OTHER);
+        }
+
+        return new ChunkedFork<>(chunks, false, responses);
     }
 
-    void clearCache() {
-        cache.clear();
+    private Void processChunk(Function<I, O> port, Object[] payloads, Object[] responses, int startIndex, int endIndex) {
+        for (int i = startIndex; i < endIndex; i++) {
+            if (Deadline.isCurrentDeadlineExceeded()) {
+                // Nobody is going to wait for the rest of the chunk.
+                throw new PortsExecutionException(Deadline.newTimeoutException());
+            }
+
+            @SuppressWarnings("unchecked")
+            I payload = (I) payloads[i];
+
+            try {
+                responses[i] = port.apply(payload);
+            } catch (Exception e) {
+                // Like with a single request, this throws unless the response type is able to represent failures.
+                responses[i] = new PortsFuture<O>(e, responseTypeInfo).get();
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns true if this OUT port is connected to an IN port, false otherwise.
+     */
+    public boolean isConnected() {
+        return binding != null;
     }
 }
\ No newline at end of file
@@ -14,90 +14,214 @@
  * limitations under the License.
  */
 
-package org.timux.ports;
 
-import org.timux.ports.types.Pair;
-import org.timux.ports.types.Tuple;
+package org.timux.ports;
 
-import java.lang.ref.SoftReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
 
+/**
+ * The cache of a {@link Pure} request port. It maps the requests to the keys of the underlying
+ * {@link ResponseCache} and keeps track of the requests that are currently being processed, so that
+ * concurrent equal requests can share a single response.
+ */
 class RequestCache<I, O> {
 
-    private final Pair<SoftReference<I>, SoftReference<O>>[] data;
+    /**
+     * Wraps the cached responses if they are refreshed ahead of time.
+     */
+    static class RefreshableResponse {
+
+        final Object response;
+        final long refreshDueNanos;
 
-    private int startIdx = 0;
-    private int size = 0;
+        // The time of the next refresh attempt. Advanced by the thread that triggers the refresh.
+        final AtomicLong nextRefreshNanos;
+
+        RefreshableResponse(Object response, long refreshDueNanos) {
+            this(response, refreshDueNanos, new AtomicLong(refreshDueNanos));
+        }
 
+        RefreshableResponse(Object response, long refreshDueNanos, AtomicLong nextRefreshNanos) {
+            this.response = response;
+            this.refreshDueNanos = refreshDueNanos;
+            this.nextRefreshNanos = nextRefreshNanos;
+        }
+    }
+
+    private final ResponseCache<Object, Object> store;
+    private final ConcurrentHashMap<Object, Task> inFlight = new ConcurrentHashMap<>();
+
+    // Incremented on each clear, so that responses computed before a clear are not put into the cache.
+    private final AtomicInteger epoch = new AtomicInteger();
+
+    private final CacheCounters counters;
+    private final Class<?> requestType;
     private final boolean isStateless;
+    private final long refreshAfterNanos;
 
-    /**
-     * @param capacity Must be a power of two.
-     */
-    public RequestCache(int capacity, Class<?> requestType) {
-        this.data = new Pair[capacity];
+    RequestCache(int capacity, Class<?> requestType) {
+        this(new CacheSpec(requestType, capacity, 0L, EvictionPolicy.LRU), StripedResponseCache::new);
+    }
+
+    RequestCache(CacheSpec spec, ResponseCacheProvider provider) {
+        this.store = provider.createCache(spec);
+        this.counters = spec.getCounters();
+        this.requestType = spec.getRequestType();
         this.isStateless = requestType.getDeclaredFields().length == 0;
+        this.refreshAfterNanos = spec.getRefreshAfter(TimeUnit.NANOSECONDS);
+
+        if (store == null) {
+            throw new IllegalStateException("cache provider returned null for " + requestType.getName());
+        }
     }
 
-    public synchronized O get(I payload) {
-        for (int k = 0; k < size; k++) {
-            int i = (startIdx + k) & (data.length - 1);
+    O get(I payload) {
+        return get(payload, null);
+    }
+
+    /**
+     * Returns the cached response or null. If the response is due for a refresh, the given refresher is
+     * called with this cache and the payload (unless another thread has already done that).
+     */
+    @SuppressWarnings("unchecked")
+    O get(I payload, BiConsumer<RequestCache<I, O>, I> refresher) {
+        Object value = store.get(keyOf(payload));
+
+        if (value == null) {
+            counters.recordMiss();
+            return null;
+        }
 
-            Pair<SoftReference<I>, SoftReference<O>> p = data[i];
+        counters.recordHit();
 
-            if (p == null) {
-                continue;
-            }
+        if (refreshAfterNanos == 0) {
+            return (O) value;
+        }
+
+        RefreshableResponse refreshableResponse = (RefreshableResponse) value;
 
-            I input = p.getA().get();
+        if (refresher != null) {
+            long now = System.nanoTime();
+            long nextRefreshNanos = refreshableResponse.nextRefreshNanos.get();
 
-            if (input == null) {
-                data[i] = null;
-                return null;
+            // If the refresh fails, the next one is due after another refresh interval.
+            if (now - nextRefreshNanos >= 0
+                    && refreshableResponse.nextRefreshNanos.compareAndSet(nextRefreshNanos, now + refreshAfterNanos))
+            {
+                refresher.accept(this, payload);
             }
+        }
 
-            O output = p.getB().get();
+        return (O) refreshableResponse.response;
+    }
+
+    void put(I payload, O response, long loadTimeNanos) {
+        store.put(keyOf(payload), wrap(response, 0L));
+        counters.recordLoad(loadTimeNanos);
+    }
+
+    /**
+     * Puts the given response under the given key of the underlying {@link ResponseCache}, unless there
+     * is a response already, without counting it as a load. The response keeps the given age, so that it
+     * neither expires nor gets refreshed later than the original one. This is used in order to restore
+     * snapshots.
+     */
+    void restore(Object key, Object response, long ageNanos) {
+        if (store.get(key) == null) {
+            store.put(key, wrap(response, ageNanos), ageNanos);
+        }
+    }
 
-            if (output == null) {
-                data[i] = null;
-                return null;
+    /**
+     * Calls the given action with the key (of the underlying {@link ResponseCache}), the response and
+     * the age of each cached entry.
+     */
+    void forEachResponse(ResponseCache.EntryAction<Object, Object> action) {
+        store.forEach((key, value, ageNanos) -> {
+            if (value instanceof RefreshableResponse) {
+                RefreshableResponse refreshableResponse = (RefreshableResponse) value;
+                long writeTimeNanos = refreshableResponse.refreshDueNanos - refreshAfterNanos;
+
+                action.accept(
+                        key,
+                        refreshableResponse.response,
+                        Math.max(ageNanos, System.nanoTime() - writeTimeNanos));
+            } else {
+                action.accept(key, value, ageNanos);
             }
+        });
+    }
 
-            if (isStateless || input.equals(payload)) {
-                int newIndex = (startIdx + (k >> 1)) & (data.length - 1);
+    private Object wrap(Object response, long ageNanos) {
+        return refreshAfterNanos == 0
+                ? response
+                : new RefreshableResponse(response, System.nanoTime() - ageNanos + refreshAfterNanos);
+    }
 
-                if (newIndex != i) {
-                    int oneBelow = (newIndex + 1) & (data.length - 1);
+    /**
+     * Returns true if the cached response is still the one that is due for a refresh, i.e. it has
+     * not been replaced in the meantime.
+     */
+    boolean isRefreshDue(I payload) {
+        Object value = store.get(keyOf(payload));
 
-                    Pair<SoftReference<I>, SoftReference<O>> newIndexObj = data[newIndex];
-                    Pair<SoftReference<I>, SoftReference<O>> oneBelowObj = data[oneBelow];
+        return value instanceof RefreshableResponse
+                && System.nanoTime() - ((RefreshableResponse) value).refreshDueNanos >= 0;
+    }
 
-                    data[i] = oneBelowObj;
-                    data[oneBelow] = newIndexObj;
-                    data[newIndex] = p;
-                }
+    int getEpoch() {
+        return epoch.get();
+    }
 
-                return output;
-            }
-        }
+    /**
+     * Registers the given promise for the given payload, unless an equal request is already being processed.
+     *
+     * @return The promise of the equal request, or null if the given promise has been registered, in which
+     * case the caller must process the request and eventually call {@link #leave}.
+     */
+    Task join(I payload, Task promise) {
+        return inFlight.putIfAbsent(keyOf(payload), promise);
+    }
 
-        return null;
+    void leave(I payload, Task promise) {
+        inFlight.remove(keyOf(payload), promise);
     }
 
-    public synchronized void put(I input, O output) {
-        if (size < data.length) {
-            size++;
-        }
+    void clear() {
+        epoch.incrementAndGet();
+        inFlight.clear();
+        store.clear();
+    }
 
-        startIdx = (startIdx + data.length - 1) & (data.length - 1);
-        data[startIdx] = Tuple.of(new SoftReference<>(input), new SoftReference<>(output));
+    void invalidate() {
+        epoch.incrementAndGet();
+        inFlight.clear();
+        counters.recordInvalidations(store.size());
+        store.clear();
     }
 
-    public synchronized void clear() {
-        for (int i = 0; i < data.length; i++) {
-            data[i] = null;
+    @SuppressWarnings("unchecked")
+    void invalidate(Object request) {
+        Object key = keyOf((I) request);
+
+        epoch.incrementAndGet();
+        inFlight.remove(key);
+
+        if (store.remove(key)) {
+            counters.recordInvalidations(1);
         }
+    }
+
+    Class<?> getRequestType() {
+        return requestType;
+    }
 
-        startIdx = 0;
-        size = 0;
+    private Object keyOf(I payload) {
+        // All instances of a stateless request type are equal, but they need not implement equals.
+        return isStateless ? requestType : payload;
     }
 }
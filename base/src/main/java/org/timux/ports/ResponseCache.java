@@ -0,0 +1,96 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.timux.ports;
+
+/**
+ * The interface of the storage behind the cache of a {@link Pure} request. Implement this interface
+ * (together with a {@link ResponseCacheProvider}) in order to plug in your own cache implementation.
+ *
+ * <p> Implementations must be thread-safe. They are free to discard entries at any time, e.g. in
+ * order to honor the capacity or the time-to-live given by the {@link CacheSpec}.
+ *
+ * @param <K> The type of the keys, i.e. the requests.
+ * @param <V> The type of the values, i.e. the responses.
+ *
+ * @see Ports#cacheProvider(ResponseCacheProvider)
+ *
+ * @since 0.6.2
+ */
+public interface ResponseCache<K, V> {
+
+    /**
+     * An action that is called for the entries of a cache, see {@link #forEach}.
+     *
+     * @since 0.6.2
+     */
+    @FunctionalInterface
+    interface EntryAction<K, V> {
+
+        /**
+         * @param ageNanos The time in nanoseconds since the entry has been put, or 0 if the cache
+         *                 does not keep track of that.
+         */
+        void accept(K key, V value, long ageNanos);
+    }
+
+    /**
+     * Returns the value associated with the given key, or null if there is none.
+     */
+    V get(K key);
+
+    /**
+     * Associates the given value with the given key. Neither of the arguments is null.
+     */
+    void put(K key, V value);
+
+    /**
+     * Associates the given value with the given key as if that had happened the given number of
+     * nanoseconds ago, so that the entry expires accordingly earlier. This method is used in order to
+     * restore cache snapshots (see {@link Ports#loadCaches}); the default implementation ignores the age.
+     */
+    default void put(K key, V value, long ageNanos) {
+        put(key, value);
+    }
+
+    /**
+     * Removes the value associated with the given key, if any.
+     *
+     * @return True if a value has been removed, false otherwise.
+     */
+    boolean remove(K key);
+
+    /**
+     * Removes all entries.
+     */
+    void clear();
+
+    /**
+     * Returns the number of entries, which may include entries that have already expired.
+     */
+    int size();
+
+    /**
+     * Calls the given action for each entry that has neither expired nor been discarded, together with
+     * the age of the entry. The action must not modify this cache. This method is used in order to write
+     * cache snapshots (see {@link Ports#saveCaches}); the default implementation does nothing, so the
+     * entries of caches that do not override it are not contained in snapshots.
+     */
+    default void forEach(EntryAction<? super K, ? super V> action) {
+        // Nothing to do by default.
+    }
+}
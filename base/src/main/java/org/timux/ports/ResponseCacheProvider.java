@@ -0,0 +1,34 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.timux.ports;
+
+/**
+ * A factory for the {@link ResponseCache} instances that store the responses of {@link Pure} requests.
+ *
+ * @see Ports#cacheProvider(ResponseCacheProvider)
+ *
+ * @since 0.6.2
+ */
+@FunctionalInterface
+public interface ResponseCacheProvider {
+
+    /**
+     * Creates a new, empty cache according to the given specification.
+     */
+    ResponseCache<Object, Object> createCache(CacheSpec spec);
+}
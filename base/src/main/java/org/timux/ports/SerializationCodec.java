@@ -0,0 +1,103 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.timux.ports;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.Method;
+
+/**
+ * The default {@link CacheCodec}, which uses Java serialization.
+ *
+ * <p> Since Java deserialization can be abused by crafted input, the decoding is restricted: dynamic
+ * proxies are rejected, and on Java 9 and later, a serialization filter bounds the nesting depth, the
+ * number of objects and the array lengths by the size of the input (unless a process-wide filter has been
+ * configured, which takes precedence). Nevertheless, the input must come from a trusted source. Since Ports is built for Java 8, the filter API is accessed via reflection.
+ */
+class SerializationCodec implements CacheCodec {
+
+    static final SerializationCodec INSTANCE = new SerializationCodec();
+
+    private static final int MAX_DEPTH = 64;
+
+    private static final Method CREATE_FILTER_METHOD;
+    private static final Method GET_SERIAL_FILTER_METHOD;
+    private static final Method SET_FILTER_METHOD;
+
+    static {
+        Method createFilterMethod = null;
+        Method getSerialFilterMethod = null;
+        Method setFilterMethod = null;
+
+        try {
+            Class<?> filterClass = Class.forName("java.io.ObjectInputFilter");
+            Class<?> configClass = Class.forName("java.io.ObjectInputFilter$Config");
+
+            createFilterMethod = configClass.getMethod("createFilter", String.class);
+            getSerialFilterMethod = configClass.getMethod("getSerialFilter");
+            setFilterMethod = ObjectInputStream.class.getMethod("setObjectInputFilter", filterClass);
+        } catch (Throwable t) {
+            createFilterMethod = null;
+        }
+
+        CREATE_FILTER_METHOD = createFilterMethod;
+        GET_SERIAL_FILTER_METHOD = getSerialFilterMethod;
+        SET_FILTER_METHOD = setFilterMethod;
+    }
+
+    private static class RestrictedObjectInputStream extends ObjectInputStream {
+
+        RestrictedObjectInputStream(InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected Class<?> resolveProxyClass(String[] interfaces) throws IOException {
+            throw new InvalidClassException("dynamic proxies are not decoded");
+        }
+    }
+
+    @Override
+    public byte[] encode(Object object) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(object);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public Object decode(byte[] bytes) throws Exception {
+        try (ObjectInputStream in = new RestrictedObjectInputStream(new ByteArrayInputStream(bytes))) {
+            if (CREATE_FILTER_METHOD != null && GET_SERIAL_FILTER_METHOD.invoke(null) == null) {
+                // Each object and each array element takes at least one byte of the input.
+                String limits = "maxdepth=" + MAX_DEPTH + ";maxrefs=" + bytes.length + ";maxarray=" + bytes.length;
+                SET_FILTER_METHOD.invoke(in, CREATE_FILTER_METHOD.invoke(null, limits));
+            }
+
+            return in.readObject();
+        }
+    }
+}
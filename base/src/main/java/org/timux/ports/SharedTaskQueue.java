@@ -0,0 +1,53 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Predicate;
+
+class SharedTaskQueue implements TaskQueue {
+
+    private final Deque<Task> queue = new ArrayDeque<>();
+
+    @Override
+    public synchronized int offer(Task task) {
+        queue.offerLast(task);
+        return queue.size();
+    }
+
+    @Override
+    public synchronized Task poll(int workerIndex) {
+        return queue.pollFirst();
+    }
+
+    @Override
+    public synchronized Task pollIf(int workerIndex, Predicate<Task> condition) {
+        Task task = queue.peekFirst();
+        return task != null && condition.test(task) ? queue.pollFirst() : null;
+    }
+
+    @Override
+    public synchronized Task pollOldest() {
+        return queue.pollFirst();
+    }
+
+    @Override
+    public synchronized int size() {
+        return queue.size();
+    }
+}
@@ -0,0 +1,365 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.timux.ports;
+
+import java.lang.ref.SoftReference;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The default {@link ResponseCache}. The keys are distributed by their hash codes among a number of
+ * independently locked stripes, each of which holds an equal share of the capacity. Small caches
+ * consist of a single stripe, so that the eviction policy is applied exactly.
+ *
+ * <p> The values are held by soft references, so that the cached responses are discarded when
+ * memory gets tight.
+ */
+class StripedResponseCache<K, V> implements ResponseCache<K, V> {
+
+    private static final int MIN_STRIPE_CAPACITY = 64;
+    private static final int MAX_NUMBER_OF_STRIPES =
+            Integer.highestOneBit(4 * Runtime.getRuntime().availableProcessors() - 1) << 1;
+
+    private static final int LFU_SAMPLE_SIZE = 8;
+    private static final int TINY_LFU_WINDOW_PERCENTAGE = 1;
+
+    private static class Entry<V> {
+
+        final SoftReference<V> value;
+        final long writeTimeNanos;
+        int frequency;
+
+        Entry(V value, long writeTimeNanos, int frequency) {
+            this.value = new SoftReference<>(value);
+            this.writeTimeNanos = writeTimeNanos;
+            this.frequency = frequency;
+        }
+    }
+
+    private class Stripe {
+
+        private final LinkedHashMap<K, Entry<V>> main;
+        private final int mainCapacity;
+
+        // The following fields are only used with W_TINY_LFU.
+        private final LinkedHashMap<K, Entry<V>> window;
+        private final int windowCapacity;
+        private final FrequencySketch sketch;
+
+        Stripe(int capacity) {
+            switch (evictionPolicy) {
+            case LRU:
+                main = new LinkedHashMap<>(16, 0.75f, true);
+                mainCapacity = capacity;
+                window = null;
+                windowCapacity = 0;
+                sketch = null;
+                break;
+
+            case LFU:
+                main = new LinkedHashMap<>(16, 0.75f, false);
+                mainCapacity = capacity;
+                window = null;
+                windowCapacity = 0;
+                sketch = null;
+                break;
+
+            case W_TINY_LFU:
+                windowCapacity = Math.max(1, capacity * TINY_LFU_WINDOW_PERCENTAGE / 100);
+                mainCapacity = Math.max(1, capacity - windowCapacity);
+                main = new LinkedHashMap<>(16, 0.75f, true);
+                window = new LinkedHashMap<>(16, 0.75f, true);
+                sketch = new FrequencySketch(capacity);
+                break;
+
+            default:
+                throw new IllegalStateException("unhandled eviction policy: " + evictionPolicy);
+            }
+        }
+
+        synchronized V get(K key) {
+            if (sketch != null) {
+                sketch.increment(key);
+            }
+
+            LinkedHashMap<K, Entry<V>> map = main;
+            Entry<V> entry = main.get(key);
+
+            if (entry == null && window != null) {
+                map = window;
+                entry = window.get(key);
+            }
+
+            if (entry == null) {
+                return null;
+            }
+
+            V value = entry.value.get();
+
+            if (value == null) {
+                map.remove(key);
+                spec.recordGcCleared();
+                return null;
+            }
+
+            if (isExpired(entry)) {
+                map.remove(key);
+                spec.recordEviction();
+                return null;
+            }
+
+            if (entry.frequency < Integer.MAX_VALUE) {
+                entry.frequency++;
+            }
+
+            return value;
+        }
+
+        synchronized void put(K key, V value, long writeTimeNanos) {
+            Entry<V> oldEntry = main.get(key);
+
+            if (oldEntry != null) {
+                main.put(key, new Entry<>(value, writeTimeNanos, oldEntry.frequency));
+                return;
+            }
+
+            if (window != null && (oldEntry = window.get(key)) != null) {
+                window.put(key, new Entry<>(value, writeTimeNanos, oldEntry.frequency));
+                return;
+            }
+
+            Entry<V> newEntry = new Entry<>(value, writeTimeNanos, 1);
+
+            switch (evictionPolicy) {
+            case LRU:
+                main.put(key, newEntry);
+
+                if (main.size() > mainCapacity) {
+                    removeEldest(main);
+                    spec.recordEviction();
+                }
+
+                break;
+
+            case LFU:
+                if (main.size() >= mainCapacity) {
+                    removeLeastFrequentlyUsed();
+                }
+
+                main.put(key, newEntry);
+                break;
+
+            case W_TINY_LFU:
+                window.put(key, newEntry);
+
+                if (window.size() > windowCapacity) {
+                    Map.Entry<K, Entry<V>> candidate = removeEldest(window);
+                    admit(candidate.getKey(), candidate.getValue());
+                }
+
+                break;
+
+            default:
+                throw new IllegalStateException("unhandled eviction policy: " + evictionPolicy);
+            }
+        }
+
+        private Map.Entry<K, Entry<V>> removeEldest(LinkedHashMap<K, Entry<V>> map) {
+            Iterator<Map.Entry<K, Entry<V>>> it = map.entrySet().iterator();
+            Map.Entry<K, Entry<V>> eldest = it.next();
+            it.remove();
+            return eldest;
+        }
+
+        private void removeLeastFrequentlyUsed() {
+            // The map is in insertion order, so the sample consists of the oldest entries.
+            Iterator<Map.Entry<K, Entry<V>>> it = main.entrySet().iterator();
+            K victim = null;
+            int minFrequency = Integer.MAX_VALUE;
+
+            for (int i = 0; i < LFU_SAMPLE_SIZE && it.hasNext(); i++) {
+                Map.Entry<K, Entry<V>> e = it.next();
+
+                if (e.getValue().frequency < minFrequency) {
+                    victim = e.getKey();
+                    minFrequency = e.getValue().frequency;
+                }
+            }
+
+            main.remove(victim);
+            spec.recordEviction();
+        }
+
+        private void admit(K candidateKey, Entry<V> candidateEntry) {
+            if (main.size() < mainCapacity) {
+                main.put(candidateKey, candidateEntry);
+                return;
+            }
+
+            K victimKey = main.keySet().iterator().next();
+
+            if (sketch.frequency(candidateKey) > sketch.frequency(victimKey)) {
+                main.remove(victimKey);
+                main.put(candidateKey, candidateEntry);
+            }
+
+            // Either the victim or the candidate has been dropped.
+            spec.recordEviction();
+        }
+
+        synchronized boolean remove(K key) {
+            if (main.remove(key) != null) {
+                return true;
+            }
+
+            return window != null && window.remove(key) != null;
+        }
+
+        synchronized void clear() {
+            main.clear();
+
+            if (window != null) {
+                window.clear();
+            }
+        }
+
+        synchronized int size() {
+            return main.size() + (window != null ? window.size() : 0);
+        }
+
+        synchronized void collect(List<K> keys, List<V> values, List<Long> writeTimes) {
+            collect(main, keys, values, writeTimes);
+
+            if (window != null) {
+                collect(window, keys, values, writeTimes);
+            }
+        }
+
+        private void collect(LinkedHashMap<K, Entry<V>> map, List<K> keys, List<V> values, List<Long> writeTimes) {
+            for (Map.Entry<K, Entry<V>> e : map.entrySet()) {
+                V value = e.getValue().value.get();
+
+                if (value != null && !isExpired(e.getValue())) {
+                    keys.add(e.getKey());
+                    values.add(value);
+                    writeTimes.add(e.getValue().writeTimeNanos);
+                }
+            }
+        }
+    }
+
+    private final Stripe[] stripes;
+    private final CacheSpec spec;
+    private final EvictionPolicy evictionPolicy;
+    private final long ttlNanos;
+
+    @SuppressWarnings("unchecked")
+    StripedResponseCache(CacheSpec spec) {
+        this.spec = spec;
+        this.evictionPolicy = spec.getEvictionPolicy();
+        this.ttlNanos = spec.getTtl(TimeUnit.NANOSECONDS);
+
+        int capacity = spec.getCapacity();
+        int numberOfStripes = Math.min(
+                MAX_NUMBER_OF_STRIPES,
+                Integer.highestOneBit(Math.max(1, capacity / MIN_STRIPE_CAPACITY)));
+        int stripeCapacity = (capacity + numberOfStripes - 1) / numberOfStripes;
+
+        this.stripes = (Stripe[]) Array.newInstance(Stripe.class, numberOfStripes);
+
+        for (int i = 0; i < numberOfStripes; i++) {
+            stripes[i] = new Stripe(stripeCapacity);
+        }
+    }
+
+    private Stripe stripeOf(K key) {
+        int h = key.hashCode();
+        return stripes[(h ^ (h >>> 16)) & (stripes.length - 1)];
+    }
+
+    private long now() {
+        return ttlNanos > 0 ? System.nanoTime() : 0L;
+    }
+
+    private long ageOf(long writeTimeNanos) {
+        return ttlNanos > 0 ? Math.max(0L, System.nanoTime() - writeTimeNanos) : 0L;
+    }
+
+    private boolean isExpired(Entry<V> entry) {
+        return ttlNanos > 0 && System.nanoTime() - entry.writeTimeNanos >= ttlNanos;
+    }
+
+    @Override
+    public V get(K key) {
+        return stripeOf(key).get(key);
+    }
+
+    @Override
+    public void put(K key, V value) {
+        stripeOf(key).put(key, value, now());
+    }
+
+    @Override
+    public void put(K key, V value, long ageNanos) {
+        stripeOf(key).put(key, value, now() - (ttlNanos > 0 ? ageNanos : 0L));
+    }
+
+    @Override
+    public boolean remove(K key) {
+        return stripeOf(key).remove(key);
+    }
+
+    @Override
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            stripe.clear();
+        }
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+
+        for (Stripe stripe : stripes) {
+            size += stripe.size();
+        }
+
+        return size;
+    }
+
+    @Override
+    public void forEach(EntryAction<? super K, ? super V> action) {
+        List<K> keys = new ArrayList<>();
+        List<V> values = new ArrayList<>();
+        List<Long> writeTimes = new ArrayList<>();
+
+        // The action is called outside of the stripe locks.
+        for (Stripe stripe : stripes) {
+            stripe.collect(keys, values, writeTimes);
+        }
+
+        for (int i = 0; i < keys.size(); i++) {
+            action.accept(keys.get(i), values.get(i), ageOf(writeTimes.get(i)));
+        }
+    }
+}
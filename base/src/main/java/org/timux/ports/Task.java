@@ -18,9 +18,14 @@ package org.timux.ports;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -34,13 +39,80 @@ class Task implements Runnable {
             100, 100, 100, 200, 200, 200, 500
     };
 
+    /*
+     * The life cycle of a task: PENDING -> COMPLETING -> DONE or CANCELLED. The thread that moves the task
+     * to COMPLETING writes the response and the throwable, and then publishes them by setting the final
+     * state. The thread that runs the task keeps its outcome to itself until then, because the task may
+     * be cancelled or may expire in the meantime.
+     */
+    private static final int PENDING = 0;
+    private static final int COMPLETING = 1;
+    private static final int DONE = 2;
+    private static final int CANCELLED = 3;
+
+    // The number of state checks before a waiting thread is parked. Most synchronous round-trips are short.
+    private static final int SPIN_LIMIT = 128;
+
+    private static final AtomicIntegerFieldUpdater<Task> STATE =
+            AtomicIntegerFieldUpdater.newUpdater(Task.class, "state");
+
+    private static final AtomicReferenceFieldUpdater<Task, Waiter> WAITERS =
+            AtomicReferenceFieldUpdater.newUpdater(Task.class, Waiter.class, "waiters");
+
+    private static final AtomicReferenceFieldUpdater<Task, Thread> RUNNER =
+            AtomicReferenceFieldUpdater.newUpdater(Task.class, Thread.class, "runner");
+
+    private static final AtomicIntegerFieldUpdater<Task> CLAIMED =
+            AtomicIntegerFieldUpdater.newUpdater(Task.class, "claimed");
+
+    private static final AtomicReferenceFieldUpdater<Task, Semaphore> QUEUE_SLOT =
+            AtomicReferenceFieldUpdater.newUpdater(Task.class, Semaphore.class, "queueSlot");
+
+    /**
+     * A node of the stack of parked threads and completion listeners. Each node holds either of them.
+     * A thread that stops waiting clears its node, which is then unlinked (see {@link #removeWaiter}).
+     */
+    private static final class Waiter {
+
+        volatile Thread thread;
+        final Runnable listener;
+        volatile Waiter next;
+
+        Waiter(Thread thread, Runnable listener) {
+            this.thread = thread;
+            this.listener = listener;
+        }
+    }
+
+    // Replaces the stack of waiters when the task is done, so that no more waiters can be added.
+    private static final Waiter RELEASED = new Waiter(null, null);
+
     private final Consumer eventPort;
     private final Function requestPort;
     private final Object payload;
     private Object response;
-    private boolean hasReturned = false;
     private Throwable throwable;
 
+    // The outcome of running the task, only accessed by the running thread.
+    private Object runResponse;
+    private Throwable runThrowable;
+
+    // The tasks that are handled together with this one (see Batch), only accessed by the running thread.
+    private List<Task> batchedTasks;
+
+    private volatile int state = PENDING;
+    private volatile Waiter waiters;
+
+    // The thread that is running the task, taken away by a thread that cancels the task and interrupts it.
+    private volatile Thread runner;
+
+    private volatile Semaphore queueSlot;
+
+    // Set by the worker that is going to run a queued task. A queued task may be taken over by a deadlock resolver.
+    private volatile int claimed;
+
+    private final Deadline deadline;
+
     private final Object sender;
     private final Object receiver;
 
@@ -49,46 +121,73 @@ class Task implements Runnable {
 
     private Thread processedByThread;
 
-    Task(Consumer eventPort, Object payload, Object mutexSubject, Object sender, Object receiver) {
+    Task(Consumer eventPort, Object payload, Lock lock, Object sender, Object receiver) {
         this.eventPort = eventPort;
         this.requestPort = null;
         this.payload = payload;
 
+        // Events are fire-and-forget, so they do not expire.
+        deadline = null;
+
         this.sender = sender;
         this.receiver = receiver;
 
         createdByThread = Thread.currentThread();
 
-        lock = mutexSubject != null
-                ? LockManager.getLock(mutexSubject)
-                : null;
+        this.lock = lock;
     }
 
-    Task(Function requestPort, Object payload, Object mutexSubject, Object sender, Object receiver) {
+    Task(Function requestPort, Object payload, Lock lock, Object sender, Object receiver) {
         this.eventPort = null;
         this.requestPort = requestPort;
         this.payload = payload;
 
+        deadline = Deadline.current();
+
         this.sender = sender;
         this.receiver = receiver;
 
         createdByThread = Thread.currentThread();
 
-        lock = mutexSubject != null
-                ? LockManager.getLock(mutexSubject)
-                : null;
+        this.lock = lock;
     }
 
     Task(Throwable throwable) {
         this.throwable = throwable;
 
-        hasReturned = true;
+        state = DONE;
+        waiters = RELEASED;
+
+        eventPort = null;
+        requestPort = null;
+        payload = null;
+        sender = null;
+        receiver = null;
+        deadline = null;
+
+        createdByThread = Thread.currentThread();
+
+        lock = null;
+    }
+
+    /**
+     * Creates a task that is not run but completed from the outside via {@link #complete} or {@link #reject}.
+     */
+    Task() {
+        this((Deadline) null);
+    }
 
+    /**
+     * Creates a task like {@link #Task()}, but waiting for it ends at the provided deadline (if not null),
+     * in which case the task expires.
+     */
+    Task(Deadline deadline) {
         eventPort = null;
         requestPort = null;
         payload = null;
         sender = null;
         receiver = null;
+        this.deadline = deadline;
 
         createdByThread = Thread.currentThread();
 
@@ -107,225 +206,541 @@ class Task implements Runnable {
         return lock;
     }
 
+    /**
+     * Returns the port if this task delivers a message to a {@link Batch} handler, otherwise null.
+     */
+    BatchPort<?, ?> getBatchPort() {
+        Object port = eventPort != null ? eventPort : requestPort;
+        return port instanceof BatchPort ? (BatchPort<?, ?>) port : null;
+    }
+
+    /**
+     * Returns true if the provided task delivers a message to the same batch handler of the same receiver
+     * as this task, so that both messages can be handled together.
+     */
+    boolean isBatchableWith(Task task) {
+        BatchPort<?, ?> batchPort = getBatchPort();
+        return batchPort != null && task.receiver == receiver && batchPort.hasSameHandlerAs(task.getBatchPort());
+    }
+
+    /**
+     * Sets the claimed tasks that are handled together with this one when it is run.
+     */
+    void setBatchedTasks(List<Task> batchedTasks) {
+        this.batchedTasks = batchedTasks;
+    }
+
+    /**
+     * Returns the batched tasks if they have not been handled, because this task has not been run after all.
+     */
+    List<Task> takeBatchedTasks() {
+        List<Task> tasks = batchedTasks;
+        batchedTasks = null;
+        return tasks;
+    }
+
+    /**
+     * Reserves this queued task for the calling worker. Returns false if another worker has reserved it already,
+     * in which case the task must not be run again.
+     */
+    boolean claim() {
+        return CLAIMED.compareAndSet(this, 0, 1);
+    }
+
     @Override
     public void run() {
+        if (state == PENDING) {
+            if (expireIfDeadlineExceeded()) {
+                processedByThread = null;
+                return;
+            }
+
+            runner = Thread.currentThread();
+
+            if (state == PENDING) {
+                Deadline previousDeadline = deadline != null ? Deadline.enter(deadline) : null;
+
+                try {
+                    runSynchronized();
+                } finally {
+                    if (deadline != null) {
+                        Deadline.exit(previousDeadline);
+                    }
+                }
+            }
+
+            if (RUNNER.getAndSet(this, null) == null) {
+                /*
+                 * A cancelling thread has taken the runner in order to interrupt it. Wait until it is done, then
+                 * clear the interrupt, so that it does not hit whatever this thread does next.
+                 */
+                while (state == COMPLETING) {
+                    Thread.yield();
+                }
+
+                Thread.interrupted();
+            }
+        }
+
+        processedByThread = null;
+
+        if (STATE.compareAndSet(this, PENDING, COMPLETING)) {
+            response = runResponse;
+            throwable = runThrowable;
+            state = DONE;
+            releaseWaiters();
+        }
+    }
+
+    private void runSynchronized() {
         /*
          * Events are able to block requests. This happens when they are dispatched synchronously as
          * a simple method call. Therefore, a check for deadlocks must ALWAYS be performed, regardless
          * of whether the task handles a request or an event.
          */
 
-        if (!hasReturned) {
-            Executor.WorkerThread processedByWorkerThread = (processedByThread instanceof Executor.WorkerThread)
-                    ? (Executor.WorkerThread) processedByThread
-                    : null;
+        if (lock == null) {
+            invoke();
+            return;
+        }
 
-            if (lock == null) {
-                try {
-                    if (eventPort != null) {
-                        eventPort.accept(payload);
-                    } else {
-                        response = requestPort.apply(payload);
-                    }
-                } catch (Exception e) {
-                    throwable = e;
-                }
+        Executor.WorkerThread processedByWorkerThread = (processedByThread instanceof Executor.WorkerThread)
+                ? (Executor.WorkerThread) processedByThread
+                : null;
+
+        if (lock.tryLock()) {
+            invokeLocked(processedByWorkerThread);
+            return;
+        }
+
+        Task deadlockStart = LockManager.isDeadlocked(this, null, lock);
+
+        if (deadlockStart != null) {
+            printDeadlockWarning(deadlockStart);
+            invoke();
+            return;
+        }
+
+        for (int timeoutIdx = 0; ; ) {
+            boolean isAcquired = false;
+
+            try {
+                isAcquired = lock.tryLock(TIMEOUTS_MS[timeoutIdx], TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                //
+            }
+
+            timeoutIdx++;
+
+            if (isAcquired) {
+                invokeLocked(processedByWorkerThread);
+                return;
+            }
+
+            expireIfDeadlineExceeded();
+
+            if (state != PENDING) {
+                // The task has been cancelled (or has expired) while waiting for the lock.
+                return;
+            }
+
+            deadlockStart = LockManager.isDeadlocked(this, null, lock);
+
+            if (deadlockStart != null) {
+                printDeadlockWarning(deadlockStart);
+                invoke();
+                return;
+            }
+
+            if (timeoutIdx >= TIMEOUTS_MS.length) {
+                lock.lock();
+                invokeLocked(processedByWorkerThread);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Invokes the port while holding the lock, which must have been acquired before, and releases it.
+     */
+    private void invokeLocked(Executor.WorkerThread processedByWorkerThread) {
+        if (processedByWorkerThread != null) {
+            processedByWorkerThread.addCurrentLock(lock);
+        } else {
+            LockManager.addLockForPlainThread(processedByThread, lock);
+        }
+
+        try {
+            invoke();
+        } finally {
+            if (processedByWorkerThread != null) {
+                processedByWorkerThread.removeCurrentLock(lock);
             } else {
-                if (lock.tryLock()) {
-                    if (processedByWorkerThread != null) {
-                        processedByWorkerThread.addCurrentLock(lock);
-                    } else {
-                        LockManager.addLockForPlainThread(processedByThread, lock);
-                    }
+                LockManager.removeLockForPlainThread(processedByThread, lock);
+            }
 
-                    try {
-                        if (eventPort != null) {
-                            eventPort.accept(payload);
-                        } else {
-                            response = requestPort.apply(payload);
-                        }
-                    } catch (Exception e) {
-                        throwable = e;
-                    } finally {
-                        if (processedByWorkerThread != null) {
-                            processedByWorkerThread.removeCurrentLock(lock);
-                        } else {
-                            LockManager.removeLockForPlainThread(processedByThread, lock);
-                        }
-
-                        lock.unlock();
-                    }
-                } else {
-                    Task deadlockStart = LockManager.isDeadlocked(this, null, lock);
-
-                    if (deadlockStart != null) {
-                        printDeadlockWarning(deadlockStart);
-
-                        try {
-                            if (eventPort != null) {
-                                eventPort.accept(payload);
-                            } else {
-                                response = requestPort.apply(payload);
-                            }
-                        } catch (Exception e) {
-                            throwable = e;
-                        }
-                    } else {
-                        int timeoutIdx = 0;
-
-                        for (; ; ) {
-                            boolean isAcquired = false;
-
-                            try {
-                                isAcquired = lock.tryLock(TIMEOUTS_MS[timeoutIdx], TimeUnit.MILLISECONDS);
-                            } catch (InterruptedException e) {
-                                //
-                            }
-
-                            timeoutIdx++;
-
-                            if (!isAcquired) {
-                                deadlockStart = LockManager.isDeadlocked(this, null, lock);
-
-                                if (deadlockStart != null) {
-                                    printDeadlockWarning(deadlockStart);
-
-                                    try {
-                                        if (eventPort != null) {
-                                            eventPort.accept(payload);
-                                        } else {
-                                            response = requestPort.apply(payload);
-                                        }
-                                    } catch (Exception e) {
-                                        throwable = e;
-                                    }
-
-                                    break;
-                                }
-                            } else {
-                                if (processedByWorkerThread != null) {
-                                    processedByWorkerThread.addCurrentLock(lock);
-                                } else {
-                                    LockManager.addLockForPlainThread(processedByThread, lock);
-                                }
-
-                                try {
-                                    if (eventPort != null) {
-                                        eventPort.accept(payload);
-                                    } else {
-                                        response = requestPort.apply(payload);
-                                    }
-                                } catch (Exception e) {
-                                    throwable = e;
-                                } finally {
-                                    if (processedByWorkerThread != null) {
-                                        processedByWorkerThread.removeCurrentLock(lock);
-                                    } else {
-                                        LockManager.removeLockForPlainThread(processedByThread, lock);
-                                    }
-
-                                    lock.unlock();
-                                }
-
-                                break;
-                            }
-
-                            if (timeoutIdx >= TIMEOUTS_MS.length) {
-                                lock.lock();
-
-                                if (processedByWorkerThread != null) {
-                                    processedByWorkerThread.addCurrentLock(lock);
-                                } else {
-                                    LockManager.addLockForPlainThread(processedByThread, lock);
-                                }
-
-                                try {
-                                    if (eventPort != null) {
-                                        eventPort.accept(payload);
-                                    } else {
-                                        response = requestPort.apply(payload);
-                                    }
-                                } catch (Exception e) {
-                                    throwable = e;
-                                } finally {
-                                    if (processedByWorkerThread != null) {
-                                        processedByWorkerThread.removeCurrentLock(lock);
-                                    } else {
-                                        LockManager.removeLockForPlainThread(processedByThread, lock);
-                                    }
-
-                                    lock.unlock();
-                                }
-
-                                break;
-                            }
-                        }
-                    }
-                }
+            lock.unlock();
+        }
+    }
+
+    private void invoke() {
+        if (batchedTasks != null) {
+            invokeBatch();
+            return;
+        }
+
+        try {
+            if (eventPort != null) {
+                eventPort.accept(payload);
+            } else {
+                runResponse = requestPort.apply(payload);
             }
+        } catch (Exception e) {
+            runThrowable = e;
         }
+    }
 
-        processedByThread = null;
+    /**
+     * Hands the payloads of this task and of the batched tasks to the batch handler with a single call. The batched
+     * tasks are completed right away, this one like any other task. Batched tasks that have been cancelled or that
+     * have expired in the meantime are left out.
+     */
+    private void invokeBatch() {
+        List<Task> tasks = new ArrayList<>(batchedTasks.size() + 1);
+        List<Object> payloads = new ArrayList<>(batchedTasks.size() + 1);
+
+        tasks.add(this);
+        payloads.add(payload);
+
+        for (Task task : batchedTasks) {
+            if (!task.expireIfDeadlineExceeded() && task.state == PENDING) {
+                tasks.add(task);
+                payloads.add(task.payload);
+            }
+        }
+
+        batchedTasks = null;
+
+        List<?> responses = null;
+
+        try {
+            responses = ((BatchPort) getBatchPort()).handle(payloads);
+        } catch (Exception e) {
+            runThrowable = e;
+        }
+
+        if (runThrowable == null && responses != null) {
+            runResponse = responses.get(0);
+        }
+
+        for (int i = 1; i < tasks.size(); i++) {
+            if (runThrowable != null) {
+                tasks.get(i).reject(runThrowable);
+            } else {
+                tasks.get(i).complete(responses != null ? responses.get(i) : null);
+            }
+        }
+    }
+
+    /**
+     * Terminates this task with a {@link CancellationException}. If the task is queued, it will be skipped
+     * (and its slot in a bounded queue is released right away). If it is running and 'mayInterruptIfRunning'
+     * is true, the running thread is interrupted. In any case, the outcome of a running task is discarded.
+     *
+     * @return False if the task is done already.
+     */
+    boolean cancel(boolean mayInterruptIfRunning) {
+        if (!STATE.compareAndSet(this, PENDING, COMPLETING)) {
+            return false;
+        }
+
+        throwable = new CancellationException("the request has been cancelled");
+
+        if (mayInterruptIfRunning) {
+            Thread t = RUNNER.getAndSet(this, null);
+
+            if (t != null) {
+                t.interrupt();
+            }
+        }
+
+        state = CANCELLED;
+        releaseQueueSlot();
+        releaseWaiters();
+
+        return true;
+    }
+
+    boolean isCancelled() {
+        return state == CANCELLED;
+    }
+
+    /**
+     * Terminates this task with a {@link TimeoutException} if its deadline has passed. A running task is
+     * not interrupted, but its outcome is discarded.
+     *
+     * @return True if the task has been terminated by this call.
+     */
+    boolean expireIfDeadlineExceeded() {
+        return deadline != null && deadline.isExceeded() && expire();
+    }
+
+    private boolean expire() {
+        if (!STATE.compareAndSet(this, PENDING, COMPLETING)) {
+            return false;
+        }
+
+        throwable = Deadline.newTimeoutException();
+        state = DONE;
+        releaseQueueSlot();
+        releaseWaiters();
+
+        return true;
+    }
+
+    /**
+     * Marks this task as occupying a slot of the provided bounded queue.
+     */
+    void occupyQueueSlot(Semaphore queueCapacity) {
+        queueSlot = queueCapacity;
+    }
+
+    /**
+     * Gives back the slot of the bounded queue this task occupies, if any. Subsequent calls do nothing.
+     */
+    void releaseQueueSlot() {
+        Semaphore queueCapacity = takeQueueSlot();
+
+        if (queueCapacity != null) {
+            queueCapacity.release();
+        }
+    }
+
+    /**
+     * Removes the slot of the bounded queue from this task without giving it back, so that it can be passed
+     * on to another task. Returns null if the task does not occupy a slot (anymore).
+     */
+    Semaphore takeQueueSlot() {
+        return queueSlot != null ? QUEUE_SLOT.getAndSet(this, null) : null;
+    }
+
+    /**
+     * Terminates this task with the provided throwable. If the task is running, its outcome is discarded.
+     */
+    void reject(Throwable throwable) {
+        if (STATE.compareAndSet(this, PENDING, COMPLETING)) {
+            this.throwable = throwable;
+            state = DONE;
+            releaseWaiters();
+        }
+    }
+
+    /**
+     * Terminates this task with the provided response. If the task is running, its outcome is discarded.
+     */
+    void complete(Object response) {
+        if (STATE.compareAndSet(this, PENDING, COMPLETING)) {
+            this.response = response;
+            state = DONE;
+            releaseWaiters();
+        }
+    }
+
+    /**
+     * Wakes up all waiting threads and then runs the completion listeners, in the order of their registration.
+     */
+    private void releaseWaiters() {
+        Waiter stack = WAITERS.getAndSet(this, RELEASED);
+        Waiter listeners = null;
+
+        for (Waiter w = stack; w != null; ) {
+            Waiter next = w.next;
+            Thread thread = w.thread;
+
+            if (thread != null) {
+                LockSupport.unpark(thread);
+            } else if (w.listener != null) {
+                // Reverse the listeners, the stack is in LIFO order.
+                w.next = listeners;
+                listeners = w;
+            }
 
-        synchronized (this) {
-            hasReturned = true;
-            notify();
+            w = next;
+        }
+
+        for (Waiter w = listeners; w != null; w = w.next) {
+            try {
+                w.listener.run();
+            } catch (Exception e) {
+                Ports.printError("completion listener terminated with an exception:");
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Pushes the given waiter onto the stack. Returns false if the task is done already.
+     */
+    private boolean push(Waiter waiter) {
+        for (;;) {
+            Waiter head = waiters;
+
+            if (head == RELEASED) {
+                return false;
+            }
+
+            waiter.next = head;
+
+            if (WAITERS.compareAndSet(this, head, waiter)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Runs the given listener as soon as this task has returned. If it already has, the listener is run
+     * immediately within the calling thread. Otherwise, it is run within the thread that completes the task.
+     */
+    void whenComplete(Runnable listener) {
+        if (!push(new Waiter(null, listener))) {
+            listener.run();
         }
     }
 
     boolean hasReturned() {
-        return hasReturned;
+        return state >= DONE;
     }
 
     Throwable getThrowable() {
-        return throwable;
+        return state >= DONE ? throwable : null;
     }
 
     Object getResponse() {
-        return response;
+        return state >= DONE ? response : null;
     }
 
-    synchronized Object waitForResponse() {
-        while (!hasReturned) {
-            try {
-                wait();
-            } catch (InterruptedException e) {
-                throw new PortsExecutionException(e);
+    /**
+     * Waits for the response. If the task has a deadline, the wait ends there and the task expires.
+     */
+    Object waitForResponse() {
+        try {
+            if (deadline == null) {
+                await(false, 0L);
+            } else if (!await(true, deadline.getNanos()) && !expire()) {
+                // The task has been completed concurrently.
+                await(false, 0L);
             }
+        } catch (InterruptedException e) {
+            throw new PortsExecutionException(e);
         }
 
-        if (throwable != null) {
-            throw throwable instanceof PortsExecutionException
-                    ? (PortsExecutionException) throwable
-                    : new PortsExecutionException(throwable);
+        return getResponseOrThrow();
+    }
+
+    /**
+     * Waits for the response. If the task has a deadline before the timeout, the wait ends there and
+     * the task expires. Otherwise, the task is left alone on timeout.
+     */
+    Object waitForResponse(long timeout, TimeUnit unit) throws TimeoutException {
+        long timeoutNanos = System.nanoTime() + unit.toNanos(timeout);
+        boolean isDeadlineFirst = deadline != null && deadline.getNanos() - timeoutNanos < 0L;
+
+        try {
+            if (!await(true, isDeadlineFirst ? deadline.getNanos() : timeoutNanos)) {
+                if (!isDeadlineFirst) {
+                    throw new TimeoutException();
+                }
+
+                if (!expire()) {
+                    await(false, 0L);
+                }
+            }
+        } catch (InterruptedException e) {
+            throw new PortsExecutionException(e);
         }
 
-        return response;
+        return getResponseOrThrow();
     }
 
-    synchronized Object waitForResponse(long timeout, TimeUnit unit) throws TimeoutException {
-        long waitMillis = unit.toMillis(timeout);
+    /**
+     * Waits until this task is done, first by spinning briefly, then by parking the calling thread.
+     *
+     * @return False if the deadline has passed before.
+     */
+    private boolean await(boolean isTimed, long deadlineNanos) throws InterruptedException {
+        for (int i = 0; i < SPIN_LIMIT; i++) {
+            if (state >= DONE) {
+                return true;
+            }
+        }
 
-        while (!hasReturned) {
-            long startMillis = System.currentTimeMillis();
+        Waiter waiter = new Waiter(Thread.currentThread(), null);
 
-            try {
-                wait(waitMillis);
-            } catch (InterruptedException e) {
-                throw new PortsExecutionException(e);
+        if (!push(waiter)) {
+            return true;
+        }
+
+        while (state < DONE) {
+            if (Thread.interrupted()) {
+                removeWaiter(waiter);
+                throw new InterruptedException();
             }
 
-            if (!hasReturned) {
-                long passedMillis = System.currentTimeMillis() - startMillis;
+            if (isTimed) {
+                long remainingNanos = deadlineNanos - System.nanoTime();
 
-                if (passedMillis >= timeout - 1) {
-                    throw new TimeoutException();
+                if (remainingNanos <= 0) {
+                    // Otherwise, polling a long-running task with timeouts would grow the stack without limit.
+                    removeWaiter(waiter);
+                    return false;
                 }
 
-                waitMillis -= passedMillis;
+                LockSupport.parkNanos(this, remainingNanos);
+            } else {
+                LockSupport.park(this);
             }
         }
 
+        return true;
+    }
+
+    /**
+     * Clears the provided waiter and unlinks all cleared waiters from the stack. Unlinking races with
+     * pushing and with other removals, so the traversal starts over whenever it might have missed a node.
+     */
+    private void removeWaiter(Waiter waiter) {
+        waiter.thread = null;
+
+        retry:
+        for (;;) {
+            Waiter predecessor = null;
+
+            for (Waiter w = waiters, next; w != null && w != RELEASED; w = next) {
+                next = w.next;
+
+                if (w.thread != null || w.listener != null) {
+                    predecessor = w;
+                } else if (predecessor != null) {
+                    predecessor.next = next;
+
+                    if (predecessor.thread == null && predecessor.listener == null) {
+                        // The predecessor has been cleared concurrently.
+                        continue retry;
+                    }
+                } else if (!WAITERS.compareAndSet(this, w, next)) {
+                    continue retry;
+                }
+            }
+
+            return;
+        }
+    }
+
+    private Object getResponseOrThrow() {
+        if (state == CANCELLED) {
+            throw (CancellationException) throwable;
+        }
+
         if (throwable != null) {
             throw throwable instanceof PortsExecutionException
                     ? (PortsExecutionException) throwable
@@ -351,7 +766,7 @@ class Task implements Runnable {
                 break;
             }
 
-            t = ((Executor.WorkerThread) t.createdByThread).getCurrentTask();
+            t = LockManager.getCurrentTask(t.createdByThread);
         }
 
         for (int i = 0; i < chain.size() / 2; i++) {
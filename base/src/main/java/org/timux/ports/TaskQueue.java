@@ -0,0 +1,46 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports;
+
+import java.util.function.Predicate;
+
+interface TaskQueue {
+
+    /**
+     * Enqueues the provided task and returns the number of tasks in the queue after insertion.
+     */
+    int offer(Task task);
+
+    /**
+     * Dequeues a task on behalf of the worker with the provided index, returns null if no task is available.
+     */
+    Task poll(int workerIndex);
+
+    /**
+     * Dequeues a task like {@link #poll}, but only if the task at the head of the queue satisfies the provided
+     * condition. Returns null otherwise.
+     */
+    Task pollIf(int workerIndex, Predicate<Task> condition);
+
+    /**
+     * Dequeues the oldest task on behalf of a sending thread (see {@link RejectionPolicy#DROP_OLDEST}). Unlike
+     * {@link #poll}, this returns null only if the queue is empty.
+     */
+    Task pollOldest();
+
+    int size();
+}
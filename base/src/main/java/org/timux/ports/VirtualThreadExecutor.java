@@ -0,0 +1,130 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports;
+
+import java.lang.reflect.Method;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs each task within its own virtual thread. Since Ports is built for Java 8, the virtual
+ * thread API is accessed via reflection.
+ */
+class VirtualThreadExecutor {
+
+    private static final Method OF_VIRTUAL_METHOD;
+    private static final Method BUILDER_NAME_METHOD;
+    private static final Method BUILDER_FACTORY_METHOD;
+
+    static {
+        Method ofVirtualMethod = null;
+        Method builderNameMethod = null;
+        Method builderFactoryMethod = null;
+
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+
+            ofVirtualMethod = Thread.class.getMethod("ofVirtual");
+            builderNameMethod = builderClass.getMethod("name", String.class, long.class);
+            builderFactoryMethod = builderClass.getMethod("factory");
+
+            // Virtual threads may be a preview feature that is not enabled, in which case this throws.
+            ofVirtualMethod.invoke(null);
+        } catch (Throwable t) {
+            ofVirtualMethod = null;
+        }
+
+        OF_VIRTUAL_METHOD = ofVirtualMethod;
+        BUILDER_NAME_METHOD = builderNameMethod;
+        BUILDER_FACTORY_METHOD = builderFactoryMethod;
+    }
+
+    private final ThreadFactory threadFactory;
+    private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger numberOfThreadsCreated = new AtomicInteger();
+    private final AtomicInteger numberOfBusyThreads = new AtomicInteger();
+
+    VirtualThreadExecutor(String threadNamePrefix) {
+        if (!isSupported()) {
+            throw new UnsupportedOperationException("virtual threads are not supported by this JVM");
+        }
+
+        try {
+            Object builder = OF_VIRTUAL_METHOD.invoke(null);
+            builder = BUILDER_NAME_METHOD.invoke(builder, threadNamePrefix + "-", 0L);
+            threadFactory = (ThreadFactory) BUILDER_FACTORY_METHOD.invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static boolean isSupported() {
+        return OF_VIRTUAL_METHOD != null;
+    }
+
+    void execute(Task task) {
+        numberOfBusyThreads.incrementAndGet();
+
+        Thread thread = threadFactory.newThread(() -> {
+            Thread currentThread = Thread.currentThread();
+
+            // Makes the task visible to the deadlock detection of the LockManager.
+            LockManager.setCurrentTaskForPlainThread(currentThread, task);
+
+            try {
+                // Exception handling is done within the task, so not required here.
+                task.setProcessedByThread(currentThread);
+                task.run();
+            } finally {
+                LockManager.removeCurrentTaskForPlainThread(currentThread);
+                threads.remove(currentThread);
+                numberOfBusyThreads.decrementAndGet();
+            }
+        });
+
+        // Must be registered before the thread starts because the task may send messages to this domain.
+        threads.add(thread);
+        numberOfThreadsCreated.incrementAndGet();
+
+        thread.start();
+    }
+
+    boolean isOwnThread(Thread thread) {
+        return threads.contains(thread);
+    }
+
+    void awaitQuiescence() {
+        for (int numberOfRuns = 0; ; numberOfRuns = (numberOfRuns + 1) & 0xffffff) {
+            if (numberOfBusyThreads.get() == 0) {
+                return;
+            }
+
+            try {
+                Thread.sleep(numberOfRuns < 10 ? 10 : (numberOfRuns < 50 ? 100 : 333));
+            } catch (InterruptedException e) {
+                Ports.printWarning("awaitQuiescence has been interrupted");
+                return;
+            }
+        }
+    }
+
+    int getNumberOfThreadsCreated() {
+        return numberOfThreadsCreated.get();
+    }
+}
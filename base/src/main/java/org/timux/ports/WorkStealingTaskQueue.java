@@ -0,0 +1,99 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports;
+
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+class WorkStealingTaskQueue implements TaskQueue {
+
+    private final ConcurrentLinkedDeque<Task>[] deques;
+    private final int mask;
+    private final AtomicInteger size = new AtomicInteger();
+
+    WorkStealingTaskQueue(int numberOfWorkers) {
+        int numberOfDeques = numberOfWorkers <= 1 ? 1 : Integer.highestOneBit(numberOfWorkers - 1) << 1;
+
+        @SuppressWarnings("unchecked")
+        ConcurrentLinkedDeque<Task>[] newDeques = (ConcurrentLinkedDeque<Task>[]) new ConcurrentLinkedDeque<?>[numberOfDeques];
+
+        deques = newDeques;
+        mask = numberOfDeques - 1;
+
+        for (int i = 0; i < deques.length; i++) {
+            deques[i] = new ConcurrentLinkedDeque<>();
+        }
+    }
+
+    @Override
+    public int offer(Task task) {
+        /*
+         * The senders are never workers of this queue (those dispatch synchronously), so there is no
+         * "own" deque to push to. Spreading the tasks randomly keeps the senders from contending with
+         * each other and gives every worker a chance to find work in its own deque first.
+         */
+        deques[ThreadLocalRandom.current().nextInt() & mask].offerLast(task);
+        return size.incrementAndGet();
+    }
+
+    @Override
+    public Task poll(int workerIndex) {
+        int home = workerIndex & mask;
+
+        for (int i = 0; i < deques.length; i++) {
+            Task task = deques[(home + i) & mask].pollFirst();
+
+            if (task != null) {
+                size.decrementAndGet();
+                return task;
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public Task pollIf(int workerIndex, Predicate<Task> condition) {
+        int home = workerIndex & mask;
+
+        for (int i = 0; i < deques.length; i++) {
+            ConcurrentLinkedDeque<Task> deque = deques[(home + i) & mask];
+            Task task = deque.peekFirst();
+
+            // Another worker may take the task in between, in which case it cannot be removed anymore.
+            if (task != null && condition.test(task) && deque.removeFirstOccurrence(task)) {
+                size.decrementAndGet();
+                return task;
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public Task pollOldest() {
+        // There is no global order across the deques, so the head of any deque is as good as any other.
+        return poll(0);
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+}
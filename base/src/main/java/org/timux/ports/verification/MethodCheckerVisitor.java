@@ -16,7 +16,13 @@
  
 package org.timux.ports.verification;
 
+import org.timux.ports.Batch;
+
 import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import java.util.List;
 
 class MethodCheckerVisitor implements ElementVisitor<Void, Void> {
 
@@ -66,34 +72,49 @@ class MethodCheckerVisitor implements ElementVisitor<Void, Void> {
         }
 
         String parameterName = element.getParameters().get(0).getSimpleName().toString();
-        String messageType = element.getParameters().get(0).asType().toString();
+        TypeMirror parameterType = element.getParameters().get(0).asType();
         String responseType = element.getReturnType().toString();
 
+        // A batch handler takes a list of messages (and returns a list of responses), see Batch.
+        boolean isBatch = element.getAnnotation(Batch.class) != null;
+        String plural = isBatch ? "s" : "";
+
+        if (isBatch) {
+            parameterType = getListElementType(parameterType);
+
+            if (parameterType == null) {
+                reporter.reportIssue(element, "batch IN port [%s] must take a %s of messages", portName, List.class.getName());
+                return null;
+            }
+        }
+
+        String messageType = parameterType.toString();
+
         if (!messageType.endsWith("Event") && !messageType.endsWith("Exception") && !messageType.endsWith("Request") && !messageType.endsWith("Command")) {
             reporter.reportIssue(element, "type '%s' is not a valid event type", messageType);
             return null;
         }
 
-        String correctName = PortNamer.toInPortName(messageType);
+        String correctName = PortNamer.toInPortName(messageType) + plural;
 
         if (!portName.equals(correctName)) {
             reporter.reportIssue(element, "'%s' is not a valid IN port name (should be '%s')", portName, correctName);
         }
 
-        if (messageType.endsWith("Event") && !parameterName.equals("event")) {
-            reporter.reportIssue(element, "'%s' is not a valid parameter name for IN port [%s] (should be 'event')", parameterName, portName);
+        if (messageType.endsWith("Event") && !parameterName.equals("event" + plural)) {
+            reporter.reportIssue(element, "'%s' is not a valid parameter name for IN port [%s] (should be '%s')", parameterName, portName, "event" + plural);
         }
 
-        if (messageType.endsWith("Exception") && !parameterName.equals("exception")) {
-            reporter.reportIssue(element, "'%s' is not a valid parameter name for IN port [%s] (should be 'exception')", parameterName, portName);
+        if (messageType.endsWith("Exception") && !parameterName.equals("exception" + plural)) {
+            reporter.reportIssue(element, "'%s' is not a valid parameter name for IN port [%s] (should be '%s')", parameterName, portName, "exception" + plural);
         }
 
-        if (messageType.endsWith("Request") && !parameterName.equals("request")) {
-            reporter.reportIssue(element, "'%s' is not a valid parameter name for IN port [%s] (should be 'request')", parameterName, portName);
+        if (messageType.endsWith("Request") && !parameterName.equals("request" + plural)) {
+            reporter.reportIssue(element, "'%s' is not a valid parameter name for IN port [%s] (should be '%s')", parameterName, portName, "request" + plural);
         }
 
-        if (messageType.endsWith("Command") && !parameterName.equals("command")) {
-            reporter.reportIssue(element, "'%s' is not a valid parameter name for IN port [%s] (should be 'command')", parameterName, portName);
+        if (messageType.endsWith("Command") && !parameterName.equals("command" + plural)) {
+            reporter.reportIssue(element, "'%s' is not a valid parameter name for IN port [%s] (should be '%s')", parameterName, portName, "command" + plural);
         }
 
         if (messageType.endsWith("Event") || messageType.endsWith("Exception")) {
@@ -103,6 +124,17 @@ class MethodCheckerVisitor implements ElementVisitor<Void, Void> {
         }
 
         if (messageType.endsWith("Request") || messageType.endsWith("Command")) {
+            if (isBatch && !responseType.equals("void")) {
+                TypeMirror elementResponseType = getListElementType(element.getReturnType());
+
+                if (elementResponseType == null) {
+                    reporter.reportIssue(element, "batch IN port [%s] must return a %s of responses", portName, List.class.getName());
+                    return null;
+                }
+
+                responseType = elementResponseType.toString();
+            }
+
             verificationModel.verifyAndRegisterInPortResponseType(messageType, responseType, portName, element);
         }
 
@@ -111,6 +143,28 @@ class MethodCheckerVisitor implements ElementVisitor<Void, Void> {
         return null;
     }
 
+    /**
+     * Returns the element type if the provided type is a {@link List}, otherwise null.
+     */
+    private static TypeMirror getListElementType(TypeMirror type) {
+        if (type.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+
+        DeclaredType declaredType = (DeclaredType) type;
+        TypeElement typeElement = (TypeElement) declaredType.asElement();
+
+        if (!typeElement.getQualifiedName().contentEquals(List.class.getName())
+                || declaredType.getTypeArguments().size() != 1)
+        {
+            return null;
+        }
+
+        TypeMirror elementType = declaredType.getTypeArguments().get(0);
+
+        return elementType.getKind() == TypeKind.DECLARED ? elementType : null;
+    }
+
     @Override
     public Void visitTypeParameter(TypeParameterElement e, Void aVoid) {
         return null;
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.timux.ports;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of many threads sending messages at the same time through ports that share
+ * a single sender and receiver, which exposes any global lock on the sending path (such as the cache
+ * invalidation check).
+ *
+ * <p> The pure request port registers a cache that is invalidated by an unrelated message type, so the
+ * invalidation index is not empty but does not match any of the messages sent.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(16)
+@State(Scope.Benchmark)
+public class MessageContentionBenchmark {
+
+    public static class Sender {
+
+        @Out
+        Event<BenchmarkEvent> benchmarkEvent;
+
+        @Out
+        Request<BenchmarkPureRequest, Integer> benchmarkPureRequest;
+    }
+
+    public static class Receiver {
+
+        @In
+        private void onBenchmarkEvent(BenchmarkEvent event) {
+            // Nothing to do.
+        }
+
+        @In
+        private Integer onBenchmarkPureRequest(BenchmarkPureRequest request) {
+            return request.getData() + 1;
+        }
+    }
+
+    private Sender sender;
+
+    private final BenchmarkEvent event = new BenchmarkEvent(1);
+    private final BenchmarkPureRequest request = new BenchmarkPureRequest(1);
+
+    @Setup
+    public void setup() {
+        sender = new Sender();
+        Receiver receiver = new Receiver();
+
+        Ports.domain("benchmark", DispatchPolicy.SYNCHRONOUS, SyncPolicy.NONE)
+                .addInstances(receiver);
+
+        Ports.connect(sender).and(receiver);
+    }
+
+    @Benchmark
+    public void invalidationCheck() {
+        CacheManager.onMessageSent(event);
+    }
+
+    @Benchmark
+    public void eventTrigger() {
+        sender.benchmarkEvent.trigger(event);
+    }
+
+    @Benchmark
+    public Integer cachedRequestCall() {
+        return sender.benchmarkPureRequest.call(request);
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.timux.ports;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the default (soft-referenced, on-heap) response cache with the off-heap cache when holding
+ * a large amount of data that is continuously read and partially replaced. The time spent in garbage
+ * collection during each iteration is printed; run with {@code -prof gc} for more details.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "-XX:MaxDirectMemorySize=2g"})
+@Threads(4)
+@State(Scope.Benchmark)
+public class OffHeapCacheBenchmark {
+
+    private static final int NUMBER_OF_RESPONSES = 8192;
+    private static final int RESPONSE_SIZE = 64 * 1024;
+    private static final int REPLACEMENT_INTERVAL = 16;
+
+    /**
+     * Stores byte arrays as they are, so that the benchmark does not measure Java serialization.
+     */
+    public static class ByteArrayCodec implements CacheCodec {
+
+        @Override
+        public byte[] encode(Object object) {
+            return (byte[]) object;
+        }
+
+        @Override
+        public Object decode(byte[] bytes) {
+            return bytes;
+        }
+    }
+
+    @Param({"heap", "offHeap"})
+    public String storage;
+
+    private ResponseCache<Object, Object> cache;
+    private long gcTimeMsAtStart;
+
+    @Setup
+    public void setup() {
+        long offHeapBytes = storage.equals("offHeap")
+                ? (long) NUMBER_OF_RESPONSES * (RESPONSE_SIZE + OffHeapResponseCache.BLOCK_SIZE)
+                : 0L;
+
+        CacheSpec spec = new CacheSpec(
+                BenchmarkPureRequest.class,
+                NUMBER_OF_RESPONSES,
+                0L,
+                0L,
+                EvictionPolicy.LRU,
+                offHeapBytes,
+                new ByteArrayCodec(),
+                new CacheCounters(BenchmarkPureRequest.class));
+
+        cache = offHeapBytes > 0 ? new OffHeapResponseCache(spec) : new StripedResponseCache<>(spec);
+
+        for (int i = 0; i < NUMBER_OF_RESPONSES; i++) {
+            cache.put(i, new byte[RESPONSE_SIZE]);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void startGcTimeMeasurement() {
+        gcTimeMsAtStart = getGcTimeMs();
+    }
+
+    @TearDown(Level.Iteration)
+    public void printGcTime() {
+        System.out.println("GC time [" + storage + "]: " + (getGcTimeMs() - gcTimeMsAtStart) + " ms");
+    }
+
+    private static long getGcTimeMs() {
+        long gcTimeMs = 0;
+
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            gcTimeMs += Math.max(0, bean.getCollectionTime());
+        }
+
+        return gcTimeMs;
+    }
+
+    @Benchmark
+    public Object getAndReplace() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Integer key = random.nextInt(NUMBER_OF_RESPONSES);
+
+        Object response = cache.get(key);
+
+        if (response == null || random.nextInt(REPLACEMENT_INTERVAL) == 0) {
+            response = new byte[RESPONSE_SIZE];
+            cache.put(key, response);
+        }
+
+        return response;
+    }
+}
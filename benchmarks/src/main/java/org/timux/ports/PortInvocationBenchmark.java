@@ -0,0 +1,119 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the per-call overhead of {@link Event#trigger} and {@link Request#call} compared to a
+ * direct method call and to a reflective call of the IN port method.
+ *
+ * <p> The receiver is in a synchronous domain without synchronization, so the messages are delivered by
+ * plain method calls and the remaining overhead is that of the framework itself (domain lookup and method
+ * invocation). Run with {@code -prof gc} in order to check that neither {@link Event#trigger} nor
+ * {@link Request#call} allocate any memory (0 B/op).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PortInvocationBenchmark {
+
+    public static class Sender {
+
+        @Out
+        Event<BenchmarkEvent> benchmarkEvent;
+
+        @Out
+        Request<BenchmarkRequest, Integer> benchmarkRequest;
+    }
+
+    public static class Receiver {
+
+        int sum;
+
+        @In
+        private void onBenchmarkEvent(BenchmarkEvent event) {
+            sum += event.getData();
+        }
+
+        @In
+        private Integer onBenchmarkRequest(BenchmarkRequest request) {
+            return request.getData() + 1;
+        }
+
+        public Integer onBenchmarkRequestDirectly(BenchmarkRequest request) {
+            return request.getData() + 1;
+        }
+    }
+
+    private Sender sender;
+    private Receiver receiver;
+    private Method requestMethod;
+
+    private final BenchmarkEvent event = new BenchmarkEvent(1);
+    private final BenchmarkRequest request = new BenchmarkRequest(1);
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        sender = new Sender();
+        receiver = new Receiver();
+
+        Ports.domain("benchmark", DispatchPolicy.SYNCHRONOUS, SyncPolicy.NONE)
+                .addInstances(receiver);
+
+        Ports.connect(sender).and(receiver);
+
+        requestMethod = Receiver.class.getDeclaredMethod("onBenchmarkRequest", BenchmarkRequest.class);
+        requestMethod.setAccessible(true);
+    }
+
+    @Benchmark
+    public Integer directCall() {
+        return receiver.onBenchmarkRequestDirectly(request);
+    }
+
+    @Benchmark
+    public Object reflectiveCall() throws ReflectiveOperationException {
+        return requestMethod.invoke(receiver, request);
+    }
+
+    @Benchmark
+    public int eventTrigger() {
+        sender.benchmarkEvent.trigger(event);
+        return receiver.sum;
+    }
+
+    @Benchmark
+    public Integer requestCall() {
+        return sender.benchmarkRequest.call(request);
+    }
+}
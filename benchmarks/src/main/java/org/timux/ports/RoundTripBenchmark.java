@@ -0,0 +1,89 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.timux.ports;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the latency of a request whose receiver is processed by another thread, i.e. the time it takes
+ * to hand over the task, to complete it, and to wake up the waiting sender.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RoundTripBenchmark {
+
+    public static class Sender {
+
+        @Out
+        Request<BenchmarkRequest, Integer> benchmarkRequest;
+    }
+
+    public static class Receiver {
+
+        @In
+        private Integer onBenchmarkRequest(BenchmarkRequest request) {
+            return request.getData() + 1;
+        }
+    }
+
+    private Sender sender;
+
+    private final BenchmarkRequest request = new BenchmarkRequest(1);
+
+    @Setup
+    public void setup() {
+        sender = new Sender();
+        Receiver receiver = new Receiver();
+
+        Ports.domain("benchmark", DispatchPolicy.ASYNCHRONOUS, SyncPolicy.NONE)
+                .addInstances(receiver);
+
+        Ports.connect(sender).and(receiver);
+    }
+
+    @TearDown
+    public void tearDown() {
+        Ports.reset();
+    }
+
+    @Benchmark
+    public Integer call() {
+        return sender.benchmarkRequest.call(request);
+    }
+
+    @Benchmark
+    public Integer callFAndTimedGet() throws Exception {
+        return sender.benchmarkRequest.callF(request).get(1, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Compares the task queues of the dispatcher with many producers (i.e. senders) and a single
+ * consumer (i.e. the worker thread of an asynchronous domain).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class TaskQueueBenchmark {
+
+    // Keeps the producers from outrunning the consumer indefinitely.
+    private static final int MAX_QUEUE_SIZE = 1 << 16;
+
+    @Param({"shared", "mpsc"})
+    public String queueType;
+
+    private TaskQueue queue;
+    private Task task;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        switch (queueType) {
+        case "shared":
+            queue = new SharedTaskQueue();
+            break;
+
+        case "mpsc":
+            queue = new MpscTaskQueue();
+            break;
+
+        default:
+            throw new IllegalStateException("unhandled queue type: " + queueType);
+        }
+
+        task = new Task((Consumer<Object>) x -> {}, null, null, null, null);
+    }
+
+    @Benchmark
+    @Group("offerPoll")
+    @GroupThreads(4)
+    public void offer() {
+        if (queue.offer(task) > MAX_QUEUE_SIZE) {
+            Thread.yield();
+        }
+    }
+
+    @Benchmark
+    @Group("offerPoll")
+    @GroupThreads(1)
+    public Task poll() {
+        return queue.poll(0);
+    }
+}
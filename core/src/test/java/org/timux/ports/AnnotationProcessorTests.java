@@ -0,0 +1,113 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports;
+
+import org.junit.jupiter.api.Test;
+import org.timux.ports.verification.AnnotationProcessor;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AnnotationProcessorTests {
+
+    private static class Source extends SimpleJavaFileObject {
+
+        private final String code;
+
+        Source(String className, String code) {
+            super(URI.create("string:///" + className + Kind.SOURCE.extension), Kind.SOURCE);
+            this.code = code;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return code;
+        }
+    }
+
+    private static final String BATCH_RECEIVER_TEMPLATE = String.join("\n",
+            "import org.timux.ports.*;",
+            "import java.util.List;",
+            "class TickEvent {}",
+            "class PriceRequest {}",
+            "public class BatchTestReceiver {",
+            "    @In @Batch private %s;",
+            "}");
+
+    /**
+     * Runs the annotation processor on a receiver with the provided batch IN port and returns the errors.
+     */
+    private static List<String> process(String portDeclaration) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+
+        Source source = new Source("BatchTestReceiver", String.format(BATCH_RECEIVER_TEMPLATE, portDeclaration));
+        List<String> options = Arrays.asList("-proc:only", "-classpath", System.getProperty("java.class.path"));
+
+        JavaCompiler.CompilationTask task = compiler.getTask(
+                null, null, diagnostics, options, null, Collections.singletonList(source));
+
+        task.setProcessors(Collections.singletonList(new AnnotationProcessor()));
+        task.call();
+
+        return diagnostics.getDiagnostics().stream()
+                .filter(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.ERROR)
+                .map(diagnostic -> diagnostic.getMessage(null))
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void batchPorts() {
+        assertEquals(Collections.emptyList(),
+                process("List<Double> onPriceRequests(List<PriceRequest> requests) { return null; }"));
+
+        assertEquals(Collections.emptyList(),
+                process("void onTicks(List<TickEvent> events) {}"));
+    }
+
+    @Test
+    public void malformedBatchPorts() {
+        assertEquals(Collections.singletonList("batch IN port [onPriceRequests] must take a java.util.List of messages"),
+                process("List<Double> onPriceRequests(PriceRequest request) { return null; }"));
+
+        assertEquals(Collections.singletonList("batch IN port [onPriceRequests] must return a java.util.List of responses"),
+                process("Double onPriceRequests(List<PriceRequest> requests) { return null; }"));
+
+        assertEquals(Collections.singletonList("'onPriceRequest' is not a valid IN port name (should be 'onPriceRequests')"),
+                process("List<Double> onPriceRequest(List<PriceRequest> requests) { return null; }"));
+
+        assertEquals(Collections.singletonList("'request' is not a valid parameter name for IN port [onPriceRequests] (should be 'requests')"),
+                process("List<Double> onPriceRequests(List<PriceRequest> request) { return null; }"));
+
+        assertEquals(Collections.singletonList("'onTickEvents' is not a valid IN port name (should be 'onTicks')"),
+                process("void onTickEvents(List<TickEvent> events) {}"));
+
+        assertEquals(Collections.singletonList("'event' is not a valid parameter name for IN port [onTicks] (should be 'events')"),
+                process("void onTicks(List<TickEvent> event) {}"));
+    }
+}
@@ -7,8 +7,14 @@ import org.junit.jupiter.api.Test;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 public class AsyncTest {
 
@@ -61,6 +67,20 @@ public class AsyncTest {
         }
     }
 
+    static class ThreadNameSender {
+
+        @Out
+        Request<ThreadNameRequest, String> threadNameRequest;
+    }
+
+    static class ThreadNameReceiver {
+
+        @In
+        private String onThreadNameRequest(ThreadNameRequest request) {
+            return Thread.currentThread().getName();
+        }
+    }
+
     static class Fixture {
 
         Random random;
@@ -106,6 +126,36 @@ public class AsyncTest {
 
     @Test
     public void nestedDeadlock() {
+        nestedDeadlock(DispatchPolicy.ASYNCHRONOUS);
+    }
+
+    @Test
+    public void nestedDeadlockVirtual() {
+        // Without virtual threads, this would just repeat the test with PARALLEL domains.
+        assumeTrue(VirtualThreadExecutor.isSupported());
+
+        nestedDeadlock(DispatchPolicy.VIRTUAL);
+    }
+
+    @Test
+    public void virtualFallsBackToParallel() {
+        assumeFalse(VirtualThreadExecutor.isSupported());
+
+        ThreadNameSender sender = new ThreadNameSender();
+        ThreadNameReceiver receiver = new ThreadNameReceiver();
+
+        Ports.connect(sender).and(receiver);
+
+        Domain domain = Ports.domain("virtual", DispatchPolicy.VIRTUAL, SyncPolicy.NONE);
+        domain.addInstances(receiver);
+
+        assertEquals(DispatchPolicy.PARALLEL, domain.getDispatchPolicy());
+
+        String threadName = sender.threadNameRequest.call(new ThreadNameRequest());
+        assertTrue(threadName.startsWith("ports-worker-virtual-"), threadName);
+    }
+
+    private void nestedDeadlock(DispatchPolicy dispatchPolicy) {
         Component a = new Component();
         Component b = new Component();
         Component c = new Component();
@@ -116,9 +166,9 @@ public class AsyncTest {
         double expectedA = a.doubleRequest.call(new DoubleRequest(40));
         double expectedB = b.doubleRequest.call(new DoubleRequest(49));
 
-        Domain d0 = Ports.domain("d0", DispatchPolicy.ASYNCHRONOUS, SyncPolicy.DOMAIN);
-        Domain d1 = Ports.domain("d1", DispatchPolicy.ASYNCHRONOUS, SyncPolicy.DOMAIN);
-        Domain d2 = Ports.domain("d2", DispatchPolicy.ASYNCHRONOUS, SyncPolicy.DOMAIN);
+        Domain d0 = Ports.domain("d0", dispatchPolicy, SyncPolicy.DOMAIN);
+        Domain d1 = Ports.domain("d1", dispatchPolicy, SyncPolicy.DOMAIN);
+        Domain d2 = Ports.domain("d2", dispatchPolicy, SyncPolicy.DOMAIN);
 
         d0.addInstances(a);
         d1.addInstances(b);
@@ -135,6 +185,77 @@ public class AsyncTest {
         assertEquals(expectedB, actualB);
     }
 
+    @Test
+    public void noStaleDispatchAfterDomainChange() throws Exception {
+        final int numberOfDomains = 20;
+        final int numberOfCallsPerDomain = 50;
+
+        ThreadNameReceiver receiver = new ThreadNameReceiver();
+        ThreadNameSender[] senders = new ThreadNameSender[4];
+        Thread[] senderThreads = new Thread[senders.length];
+
+        // In each round, a new domain is published, the senders send their requests, and the old domain is released.
+        CyclicBarrier domainPublished = new CyclicBarrier(senders.length + 1);
+        CyclicBarrier requestsSent = new CyclicBarrier(senders.length + 1);
+        AtomicReference<String> error = new AtomicReference<>();
+
+        for (int i = 0; i < senders.length; i++) {
+            ThreadNameSender sender = new ThreadNameSender();
+            senders[i] = sender;
+
+            Ports.connect(sender).and(receiver);
+
+            senderThreads[i] = new Thread(() -> {
+                try {
+                    for (int expectedDomainIndex = 0; expectedDomainIndex < numberOfDomains; expectedDomainIndex++) {
+                        domainPublished.await();
+
+                        for (int k = 0; k < numberOfCallsPerDomain; k++) {
+                            // The thread name looks like this: ports-worker-stress-<domain index>-<thread index>
+                            String threadName = sender.threadNameRequest.call(new ThreadNameRequest());
+                            int actualDomainIndex = Integer.parseInt(threadName.split("-")[3]);
+
+                            if (actualDomainIndex != expectedDomainIndex) {
+                                error.compareAndSet(null, "request was dispatched to domain " + actualDomainIndex
+                                        + " after domain " + expectedDomainIndex + " had been published");
+                            }
+                        }
+
+                        requestsSent.await();
+                    }
+                } catch (InterruptedException | BrokenBarrierException e) {
+                    error.compareAndSet(null, e.toString());
+                }
+            });
+
+            senderThreads[i].start();
+        }
+
+        Domain previousDomain = null;
+
+        for (int i = 0; i < numberOfDomains; i++) {
+            Domain domain = Ports.domain("stress-" + i, DispatchPolicy.ASYNCHRONOUS, SyncPolicy.NONE);
+            domain.addInstances(receiver);
+
+            domainPublished.await(10, TimeUnit.SECONDS);
+
+            // The replaced domain has no more work, so its worker thread can be stopped right away.
+            if (previousDomain != null) {
+                previousDomain.release();
+            }
+
+            requestsSent.await(10, TimeUnit.SECONDS);
+
+            previousDomain = domain;
+        }
+
+        for (Thread senderThread : senderThreads) {
+            senderThread.join();
+        }
+
+        assertNull(error.get());
+    }
+
     @Test
     public void asyncRandomized01() {
         f(new Fixture(0L, NUMBER_OF_COMPONENTS), false);
@@ -0,0 +1,34 @@
+package org.timux.ports;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class BatchReceiver {
+
+    public final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+    public final List<Integer> eventBatchSizes = Collections.synchronizedList(new ArrayList<>());
+    public final List<Integer> eventData = Collections.synchronizedList(new ArrayList<>());
+
+    @In
+    @Batch(maxSize = 10)
+    private List<Double> onDoubleRequests(List<DoubleRequest> requests) {
+        batchSizes.add(requests.size());
+
+        if (requests.stream().anyMatch(request -> request.getData() < 0)) {
+            throw new IllegalArgumentException("negative request");
+        }
+
+        return requests.stream()
+                .map(request -> 1.5 * request.getData())
+                .collect(Collectors.toList());
+    }
+
+    @In
+    @Batch(maxSize = 10)
+    private void onInts(List<IntEvent> events) {
+        eventBatchSizes.add(events.size());
+        events.forEach(event -> eventData.add(event.getData()));
+    }
+}
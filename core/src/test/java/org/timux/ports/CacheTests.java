@@ -22,21 +22,150 @@ import org.timux.ports.types.Container;
 import org.timux.ports.types.Either;
 import org.timux.ports.types.Failure;
 
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class CacheTests {
 
+    static class SlowPureSender {
+
+        @Out
+        Request<SlowPureRequest, Integer> slowPureRequest;
+    }
+
+    static class SlowPureReceiver {
+
+        final AtomicInteger numberOfCalls = new AtomicInteger();
+
+        @In
+        private Integer onSlowPureRequest(SlowPureRequest request) throws InterruptedException {
+            numberOfCalls.incrementAndGet();
+            Thread.sleep(200);
+            return request.getArg() * 2;
+        }
+    }
+
     @AfterEach
     public void afterEach() {
         Ports.reset();
     }
 
+    static class SharedPureSender {
+
+        @Out
+        Request<SharedPureRequest, Integer> sharedPureRequest;
+    }
+
+    static class SharedPureReceiver {
+
+        final AtomicInteger numberOfCalls = new AtomicInteger();
+
+        @In
+        private Integer onSharedPureRequest(SharedPureRequest request) {
+            numberOfCalls.incrementAndGet();
+            return request.getArg() * 2;
+        }
+    }
+
+    static class RefreshingSender {
+
+        @Out
+        Request<RefreshingPureRequest, Integer> refreshingPureRequest;
+    }
+
+    static class RefreshingReceiver {
+
+        final AtomicInteger numberOfCalls = new AtomicInteger();
+
+        @In
+        private Integer onRefreshingPureRequest(RefreshingPureRequest request) throws InterruptedException {
+            // Deliberately impure, in order to tell the responses apart.
+            int callNumber = numberOfCalls.incrementAndGet();
+
+            if (callNumber > 1) {
+                Thread.sleep(200);
+            }
+
+            return callNumber;
+        }
+    }
+
+    static class ExpiringSender {
+
+        @Out
+        Request<ExpiringPureRequest, Integer> expiringPureRequest;
+    }
+
+    static class ExpiringReceiver {
+
+        final AtomicInteger numberOfCalls = new AtomicInteger();
+
+        @In
+        private Integer onExpiringPureRequest(ExpiringPureRequest request) {
+            numberOfCalls.incrementAndGet();
+            return request.getArg() * 2;
+        }
+    }
+
+    static class OffHeapSender {
+
+        @Out
+        Request<OffHeapPureRequest, String> offHeapPureRequest;
+    }
+
+    static class OffHeapReceiver {
+
+        final AtomicInteger numberOfCalls = new AtomicInteger();
+
+        @In
+        private String onOffHeapPureRequest(OffHeapPureRequest request) {
+            numberOfCalls.incrementAndGet();
+
+            // The serialized response occupies arg + 1 blocks.
+            char[] chars = new char[request.getArg() * OffHeapResponseCache.BLOCK_SIZE];
+            Arrays.fill(chars, (char) ('a' + request.getArg()));
+            return new String(chars);
+        }
+    }
+
+    static class SharedPureCodec implements CacheCodec {
+
+        @Override
+        public byte[] encode(Object object) {
+            int value = object instanceof SharedPureRequest ? ((SharedPureRequest) object).getArg() : (Integer) object;
+            return ByteBuffer.allocate(5).put((byte) (object instanceof SharedPureRequest ? 1 : 0)).putInt(value).array();
+        }
+
+        @Override
+        public Object decode(byte[] bytes) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            return buffer.get() == 1 ? new SharedPureRequest(buffer.getInt()) : (Object) buffer.getInt();
+        }
+    }
+
     @Test
     public void requestCache() {
         RequestCache<Integer, Integer> requestCache = new RequestCache<>(8, Integer.class);
 
         for (int i = 0; i < 16; i++) {
-            requestCache.put(i, 2 * i);
+            requestCache.put(i, 2 * i, 0L);
         }
 
         for (int i = 0; i < 8; i++) {
@@ -48,7 +177,7 @@ public class CacheTests {
         }
 
         for (int i = 0; i < 5; i++) {
-            requestCache.put(i, 2 * i);
+            requestCache.put(i, 2 * i, 0L);
         }
 
         for (int i = 0; i < 5; i++) {
@@ -253,6 +382,502 @@ public class CacheTests {
         assertSame(responseE, responseF);
     }
 
+    @Test
+    public void stripedCacheWithHighCapacity() {
+        RequestCache<Integer, Integer> requestCache =
+                new RequestCache<>(new CacheSpec(Integer.class, 10000, 0L, EvictionPolicy.LRU), StripedResponseCache::new);
+
+        for (int i = 0; i < 10000; i++) {
+            requestCache.put(i, 2 * i, 0L);
+        }
+
+        for (int i = 0; i < 10000; i++) {
+            assertEquals(2 * i, requestCache.get(i));
+        }
+    }
+
+    @Test
+    public void cacheTtl() throws InterruptedException {
+        RequestCache<Integer, Integer> requestCache = new RequestCache<>(
+                new CacheSpec(Integer.class, 8, TimeUnit.MILLISECONDS.toNanos(50), EvictionPolicy.LRU),
+                StripedResponseCache::new);
+
+        requestCache.put(1, 2, 0L);
+        assertEquals(2, requestCache.get(1));
+
+        Thread.sleep(100);
+
+        assertNull(requestCache.get(1));
+    }
+
+    @Test
+    public void lfuEviction() {
+        RequestCache<Integer, Integer> requestCache =
+                new RequestCache<>(new CacheSpec(Integer.class, 4, 0L, EvictionPolicy.LFU), StripedResponseCache::new);
+
+        for (int i = 0; i < 4; i++) {
+            requestCache.put(i, 2 * i, 0L);
+        }
+
+        for (int k = 0; k < 3; k++) {
+            requestCache.get(0);
+            requestCache.get(1);
+            requestCache.get(3);
+        }
+
+        requestCache.put(4, 8, 0L);
+
+        assertNull(requestCache.get(2));
+        assertEquals(0, requestCache.get(0));
+        assertEquals(2, requestCache.get(1));
+        assertEquals(6, requestCache.get(3));
+        assertEquals(8, requestCache.get(4));
+    }
+
+    @Test
+    public void tinyLfuKeepsPopularResponses() {
+        RequestCache<Integer, Integer> requestCache = new RequestCache<>(
+                new CacheSpec(Integer.class, 100, 0L, EvictionPolicy.W_TINY_LFU), StripedResponseCache::new);
+
+        for (int k = 0; k < 5; k++) {
+            for (int i = 0; i < 90; i++) {
+                if (requestCache.get(i) == null) {
+                    requestCache.put(i, 2 * i, 0L);
+                }
+            }
+        }
+
+        for (int i = 1000; i < 1500; i++) {
+            if (requestCache.get(i) == null) {
+                requestCache.put(i, 2 * i, 0L);
+            }
+        }
+
+        int numberOfHits = 0;
+
+        for (int i = 0; i < 90; i++) {
+            if (requestCache.get(i) != null) {
+                numberOfHits++;
+            }
+        }
+
+        assertTrue(numberOfHits >= 80, "only " + numberOfHits + " popular responses left");
+    }
+
+    @Test
+    public void customCacheProvider() {
+        List<CacheSpec> specs = new ArrayList<>();
+        Map<Object, Object> entries = new HashMap<>();
+
+        Ports.cacheProvider(spec -> {
+            specs.add(spec);
+
+            return new ResponseCache<Object, Object>() {
+
+                @Override
+                public Object get(Object key) {
+                    return entries.get(key);
+                }
+
+                @Override
+                public void put(Object key, Object value) {
+                    entries.put(key, value);
+                }
+
+                @Override
+                public boolean remove(Object key) {
+                    return entries.remove(key) != null;
+                }
+
+                @Override
+                public void clear() {
+                    entries.clear();
+                }
+
+                @Override
+                public int size() {
+                    return entries.size();
+                }
+            };
+        });
+
+        PureSender pureSender = new PureSender();
+        PureReceiver pureReceiver = new PureReceiver();
+
+        Ports.connect(pureSender).and(pureReceiver);
+
+        Either<Integer, Failure> responseA = pureSender.runCall(3);
+        Either<Integer, Failure> responseB = pureSender.runCall(3);
+
+        assertSame(responseA, responseB);
+        assertEquals(responseA, entries.get(new PureEitherRequest(3)));
+
+        CacheSpec eitherSpec = specs.stream()
+                .filter(spec -> spec.getRequestType() == PureEitherRequest.class)
+                .findFirst()
+                .orElseThrow(IllegalStateException::new);
+
+        assertEquals(4, eitherSpec.getCapacity());
+        assertEquals(0L, eitherSpec.getTtl(TimeUnit.SECONDS));
+        assertEquals(EvictionPolicy.LRU, eitherSpec.getEvictionPolicy());
+    }
+
+    @Test
+    public void cacheStatistics() throws Exception {
+        PureSender pureSender = new PureSender();
+        PureReceiver pureReceiver = new PureReceiver();
+
+        Ports.connect(pureSender).and(pureReceiver);
+
+        pureSender.runCall(3);
+        pureSender.runCall(3);
+        pureSender.runCall(4);
+        pureSender.runCall(5);
+        pureSender.runCall(6);
+        pureSender.runCall(7);
+
+        Ports.protocol()
+            .with(ClearEvent.class)
+                .trigger(new ClearEvent());
+
+        CacheStatistics statistics = Ports.cacheStatistics(PureEitherRequest.class);
+
+        assertEquals(1, statistics.getHitCount());
+        assertEquals(5, statistics.getMissCount());
+        assertEquals(5, statistics.getLoadCount());
+        assertEquals(1, statistics.getEvictionCount());
+        assertEquals(4, statistics.getInvalidationCount());
+        assertEquals(0, statistics.getGcClearedCount());
+        assertEquals(1.0 / 6.0, statistics.getHitRate(), 1e-9);
+        assertTrue(statistics.getTotalLoadTime(TimeUnit.NANOSECONDS) > 0);
+
+        assertEquals(statistics.getHitCount(), Ports.cacheStatistics().get(PureEitherRequest.class).getHitCount());
+
+        ObjectName name = new ObjectName("org.timux.ports:type=CacheStatistics,name=" + PureEitherRequest.class.getName());
+        assertEquals(1L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "HitCount"));
+    }
+
+    @Test
+    public void concurrentEqualRequestsAreCoalesced() throws InterruptedException {
+        SlowPureSender sender = new SlowPureSender();
+        SlowPureReceiver receiver = new SlowPureReceiver();
+
+        Ports.connect(sender).and(receiver);
+
+        Thread[] threads = new Thread[16];
+        Integer[] responses = new Integer[threads.length];
+        CountDownLatch startSignal = new CountDownLatch(1);
+
+        for (int i = 0; i < threads.length; i++) {
+            int index = i;
+
+            threads[i] = new Thread(() -> {
+                try {
+                    startSignal.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+
+                responses[index] = index % 2 == 0
+                        ? sender.slowPureRequest.call(new SlowPureRequest(21))
+                        : sender.slowPureRequest.callF(new SlowPureRequest(21)).get();
+            });
+
+            threads[i].start();
+        }
+
+        startSignal.countDown();
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(1, receiver.numberOfCalls.get());
+
+        for (Integer response : responses) {
+            assertEquals(42, response);
+        }
+
+        assertEquals(42, sender.slowPureRequest.call(new SlowPureRequest(21)));
+        assertEquals(1, receiver.numberOfCalls.get());
+    }
+
+    @Test
+    public void coalescedRequestsOutliveTheLeader() {
+        SlowPureSender sender = new SlowPureSender();
+        SlowPureReceiver receiver = new SlowPureReceiver();
+
+        Ports.connect(sender).and(receiver);
+        Ports.domain("slow", DispatchPolicy.ASYNCHRONOUS, SyncPolicy.NONE).addInstances(receiver);
+
+        // If the leading request is cancelled, a follower sends the request itself.
+        PortsFuture<Integer> leader = sender.slowPureRequest.callF(new SlowPureRequest(1));
+        PortsFuture<Integer> follower = sender.slowPureRequest.callF(new SlowPureRequest(1));
+
+        assertTrue(leader.cancel(true));
+        assertEquals(2, follower.get());
+
+        // The same applies if the deadline of the leading request passes.
+        PortsFuture<Integer> expiringLeader = sender.slowPureRequest.callF(new SlowPureRequest(2), 50, TimeUnit.MILLISECONDS);
+        PortsFuture<Integer> secondFollower = sender.slowPureRequest.callF(new SlowPureRequest(2));
+
+        PortsExecutionException e = assertThrows(PortsExecutionException.class, expiringLeader::get);
+        assertEquals(TimeoutException.class, e.getCause().getClass());
+        assertEquals(4, secondFollower.get());
+    }
+
+    @Test
+    public void coalescedRequestsHaveTheirOwnDeadlines() {
+        SlowPureSender sender = new SlowPureSender();
+        SlowPureReceiver receiver = new SlowPureReceiver();
+
+        Ports.connect(sender).and(receiver);
+        Ports.domain("slow", DispatchPolicy.ASYNCHRONOUS, SyncPolicy.NONE).addInstances(receiver);
+
+        PortsFuture<Integer> leader = sender.slowPureRequest.callF(new SlowPureRequest(21));
+
+        PortsExecutionException e = assertTimeout(Duration.ofMillis(150), () -> assertThrows(
+                PortsExecutionException.class,
+                () -> sender.slowPureRequest.call(new SlowPureRequest(21), 50, TimeUnit.MILLISECONDS)));
+
+        assertEquals(TimeoutException.class, e.getCause().getClass());
+
+        // The expired follower does not affect the leading request.
+        assertEquals(42, leader.get());
+        assertEquals(1, receiver.numberOfCalls.get());
+    }
+
+    @Test
+    public void cancellingACoalescedRequest() {
+        SlowPureSender sender = new SlowPureSender();
+        SlowPureReceiver receiver = new SlowPureReceiver();
+
+        Ports.connect(sender).and(receiver);
+        Ports.domain("slow", DispatchPolicy.ASYNCHRONOUS, SyncPolicy.NONE).addInstances(receiver);
+
+        PortsFuture<Integer> leader = sender.slowPureRequest.callF(new SlowPureRequest(21));
+        PortsFuture<Integer> cancelledFollower = sender.slowPureRequest.callF(new SlowPureRequest(21));
+        PortsFuture<Integer> follower = sender.slowPureRequest.callF(new SlowPureRequest(21));
+
+        assertTrue(cancelledFollower.cancel(true));
+        assertTrue(cancelledFollower.isCancelled());
+        assertThrows(CancellationException.class, cancelledFollower::get);
+
+        assertEquals(42, leader.get());
+        assertEquals(42, follower.get());
+        assertFalse(follower.isCancelled());
+        assertEquals(1, receiver.numberOfCalls.get());
+    }
+
+    @Test
+    public void sharedCache() {
+        SharedPureSender senderA = new SharedPureSender();
+        SharedPureSender senderB = new SharedPureSender();
+        SharedPureSender senderC = new SharedPureSender();
+        SharedPureReceiver receiver = new SharedPureReceiver();
+        SharedPureReceiver otherReceiver = new SharedPureReceiver();
+
+        Ports.connect(senderA).and(receiver);
+        Ports.connect(senderB).and(receiver);
+        Ports.connect(senderC).and(otherReceiver);
+
+        assertEquals(6, senderA.sharedPureRequest.call(new SharedPureRequest(3)));
+        assertEquals(6, senderB.sharedPureRequest.call(new SharedPureRequest(3)));
+        assertEquals(1, receiver.numberOfCalls.get());
+
+        assertEquals(6, senderC.sharedPureRequest.call(new SharedPureRequest(3)));
+        assertEquals(1, otherReceiver.numberOfCalls.get());
+
+        Ports.protocol()
+            .with(ClearEvent.class)
+                .trigger(new ClearEvent());
+
+        assertEquals(6, senderB.sharedPureRequest.call(new SharedPureRequest(3)));
+        assertEquals(6, senderA.sharedPureRequest.call(new SharedPureRequest(3)));
+        assertEquals(2, receiver.numberOfCalls.get());
+
+        assertEquals(6, senderC.sharedPureRequest.call(new SharedPureRequest(3)));
+        assertEquals(2, otherReceiver.numberOfCalls.get());
+    }
+
+    @Test
+    public void keyTargetedInvalidation() {
+        Ports.invalidateCacheOn(KeyedClearEvent.class, SharedPureRequest.class, event -> new SharedPureRequest(event.getArg()));
+
+        SharedPureSender sender = new SharedPureSender();
+        SharedPureReceiver receiver = new SharedPureReceiver();
+
+        Ports.connect(sender).and(receiver);
+
+        sender.sharedPureRequest.call(new SharedPureRequest(3));
+        sender.sharedPureRequest.call(new SharedPureRequest(4));
+        assertEquals(2, receiver.numberOfCalls.get());
+
+        Ports.protocol()
+            .with(KeyedClearEvent.class)
+                .trigger(new KeyedClearEvent(3));
+
+        assertEquals(8, sender.sharedPureRequest.call(new SharedPureRequest(4)));
+        assertEquals(2, receiver.numberOfCalls.get());
+
+        assertEquals(6, sender.sharedPureRequest.call(new SharedPureRequest(3)));
+        assertEquals(3, receiver.numberOfCalls.get());
+
+        assertEquals(1, Ports.cacheStatistics(SharedPureRequest.class).getInvalidationCount());
+    }
+
+    @Test
+    public void refreshAhead() throws InterruptedException {
+        RefreshingSender sender = new RefreshingSender();
+        RefreshingReceiver receiver = new RefreshingReceiver();
+
+        Ports.connect(sender).and(receiver);
+
+        assertEquals(1, sender.refreshingPureRequest.call(new RefreshingPureRequest(1)));
+        assertEquals(1, sender.refreshingPureRequest.call(new RefreshingPureRequest(1)));
+
+        Thread.sleep(150);
+
+        // The stale response is returned immediately while the refresh takes 200 ms in the background.
+        long startNanos = System.nanoTime();
+        assertEquals(1, sender.refreshingPureRequest.call(new RefreshingPureRequest(1)));
+        assertEquals(1, sender.refreshingPureRequest.call(new RefreshingPureRequest(1)));
+        assertTrue(System.nanoTime() - startNanos < TimeUnit.MILLISECONDS.toNanos(150));
+
+        long deadline = System.currentTimeMillis() + 5000;
+
+        while (sender.refreshingPureRequest.call(new RefreshingPureRequest(1)) == 1) {
+            assertTrue(System.currentTimeMillis() < deadline, "the response has not been refreshed");
+            Thread.sleep(10);
+        }
+
+        assertEquals(2, sender.refreshingPureRequest.call(new RefreshingPureRequest(1)));
+        assertEquals(2, receiver.numberOfCalls.get());
+    }
+
+    @Test
+    public void offHeapCache() {
+        OffHeapSender sender = new OffHeapSender();
+        OffHeapReceiver receiver = new OffHeapReceiver();
+
+        Ports.connect(sender).and(receiver);
+
+        String response = sender.offHeapPureRequest.call(new OffHeapPureRequest(3));
+        String cachedResponse = sender.offHeapPureRequest.call(new OffHeapPureRequest(3));
+        assertEquals(response, cachedResponse);
+        assertNotSame(response, cachedResponse);
+        assertEquals(1, receiver.numberOfCalls.get());
+
+        // 4 + 3 of 10 blocks are used, so the least recently used response must make room for 5 more.
+        sender.offHeapPureRequest.call(new OffHeapPureRequest(2));
+        sender.offHeapPureRequest.call(new OffHeapPureRequest(3));
+        sender.offHeapPureRequest.call(new OffHeapPureRequest(4));
+        assertEquals(3, receiver.numberOfCalls.get());
+
+        assertEquals(response, sender.offHeapPureRequest.call(new OffHeapPureRequest(3)));
+        assertEquals(3, receiver.numberOfCalls.get());
+
+        sender.offHeapPureRequest.call(new OffHeapPureRequest(2));
+        assertEquals(4, receiver.numberOfCalls.get());
+
+        assertTrue(Ports.cacheStatistics(OffHeapPureRequest.class).getEvictionCount() >= 1);
+    }
+
+    @Test
+    public void cacheSnapshot() throws IOException {
+        Path file = Files.createTempFile("ports-cache", ".snapshot");
+
+        try {
+            SharedPureSender sender = new SharedPureSender();
+            SharedPureReceiver receiver = new SharedPureReceiver();
+
+            Ports.connect(sender).and(receiver);
+
+            sender.sharedPureRequest.call(new SharedPureRequest(3));
+            sender.sharedPureRequest.call(new SharedPureRequest(4));
+            assertEquals(2, Ports.saveCaches(file, "1", new SharedPureCodec()));
+
+            Ports.reset();
+
+            assertEquals(0, Ports.loadCaches(file, "2", new SharedPureCodec()));
+            assertEquals(2, Ports.loadCaches(file, "1", new SharedPureCodec()));
+
+            SharedPureSender newSender = new SharedPureSender();
+            SharedPureReceiver newReceiver = new SharedPureReceiver();
+
+            Ports.connect(newSender).and(newReceiver);
+
+            assertEquals(6, newSender.sharedPureRequest.call(new SharedPureRequest(3)));
+            assertEquals(8, newSender.sharedPureRequest.call(new SharedPureRequest(4)));
+            assertEquals(0, newReceiver.numberOfCalls.get());
+
+            assertEquals(10, newSender.sharedPureRequest.call(new SharedPureRequest(5)));
+            assertEquals(1, newReceiver.numberOfCalls.get());
+
+            // Restored responses are subject to invalidation like all others, also in caches created later.
+            Ports.protocol()
+                .with(ClearEvent.class)
+                    .trigger(new ClearEvent());
+
+            SharedPureSender otherSender = new SharedPureSender();
+            SharedPureReceiver otherReceiver = new SharedPureReceiver();
+
+            Ports.connect(otherSender).and(otherReceiver);
+
+            assertEquals(6, newSender.sharedPureRequest.call(new SharedPureRequest(3)));
+            assertEquals(2, newReceiver.numberOfCalls.get());
+
+            assertEquals(8, otherSender.sharedPureRequest.call(new SharedPureRequest(4)));
+            assertEquals(1, otherReceiver.numberOfCalls.get());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void cacheSnapshotKeepsAges() throws IOException, InterruptedException {
+        Path file = Files.createTempFile("ports-cache", ".snapshot");
+
+        try {
+            ExpiringSender sender = new ExpiringSender();
+            ExpiringReceiver receiver = new ExpiringReceiver();
+
+            Ports.connect(sender).and(receiver);
+
+            sender.expiringPureRequest.call(new ExpiringPureRequest(1));
+            Thread.sleep(300);
+            sender.expiringPureRequest.call(new ExpiringPureRequest(2));
+            assertEquals(2, Ports.saveCaches(file, "1"));
+
+            Ports.reset();
+
+            assertEquals(2, Ports.loadCaches(file, "1"));
+
+            ExpiringSender newSender = new ExpiringSender();
+            ExpiringReceiver newReceiver = new ExpiringReceiver();
+
+            Ports.connect(newSender).and(newReceiver);
+
+            // The first response has been cached more than 400 ms ago by now, the second one has not.
+            Thread.sleep(150);
+
+            assertEquals(2, newSender.expiringPureRequest.call(new ExpiringPureRequest(1)));
+            assertEquals(1, newReceiver.numberOfCalls.get());
+
+            assertEquals(4, newSender.expiringPureRequest.call(new ExpiringPureRequest(2)));
+            assertEquals(1, newReceiver.numberOfCalls.get());
+
+            // Responses that have expired since the snapshot has been written are not restored at all.
+            Thread.sleep(300);
+
+            Ports.reset();
+
+            assertEquals(0, Ports.loadCaches(file, "1"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
 //    @Test
 //    public void requestCachePerformance() {
 //        RequestCache<Integer, Integer> requestCache = new RequestCache<>(101);
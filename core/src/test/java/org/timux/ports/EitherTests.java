@@ -471,6 +471,32 @@ public class EitherTests {
         assertEquals("xy", throwable.getMessage());
     }
 
+    @Test
+    public void failuresInDirectlyDispatchedDomain() {
+        EitherA a = new EitherA();
+        EitherB b = new EitherB();
+
+        Ports.domain("direct", DispatchPolicy.SYNCHRONOUS, SyncPolicy.NONE)
+                .addInstances(b);
+
+        Ports.connect(a).and(b);
+
+        Either<Integer, Failure> response = a.eitherXFailureRequest.call(new EitherXFailureRequest("xfailure"));
+        Throwable failureCause = response.getBOrThrow().getThrowable().get().getCause();
+        assertEquals(MySpecialTestException.class, failureCause.getClass());
+        assertEquals("xfailure", failureCause.getMessage());
+
+        Exception exception = assertThrows(
+                PortsExecutionException.class,
+                () -> a.eitherXYRequest.call(new EitherXYRequest("xy"))
+        );
+
+        assertEquals(MySpecialTestException.class, exception.getCause().getClass());
+
+        Failure failure = a.eitherXYRequest.callE(new EitherXYRequest("xye")).getBOrThrow();
+        assertEquals("xye", failure.getThrowable().get().getCause().getMessage());
+    }
+
     @Test
     public void either3XFailureResponse() {
         EitherA a = new EitherA();
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.timux.ports;
+
+import java.util.concurrent.TimeUnit;
+
+@Response(Integer.class)
+@Pure(refreshAfter = 100, ttl = 10000, ttlUnit = TimeUnit.MILLISECONDS)
+public class RefreshingPureRequest {
+
+    private final int arg;
+
+    public RefreshingPureRequest(int arg) {
+        this.arg = arg;
+    }
+
+    public int getArg() {
+        return arg;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        RefreshingPureRequest that = (RefreshingPureRequest) o;
+        return arg == that.arg;
+    }
+
+    @Override
+    public int hashCode() {
+        return Integer.hashCode(arg);
+    }
+}
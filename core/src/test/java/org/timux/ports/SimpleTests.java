@@ -22,6 +22,15 @@ import org.junit.jupiter.api.Test;
 import org.timux.ports.types.Failure;
 
 import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -258,6 +267,419 @@ public class SimpleTests {
         assertEquals(Runtime.getRuntime().availableProcessors(), domainA.getNumberOfThreadsCreated());
     }
 
+    @Test
+    public void completionCallbacks() throws Exception {
+        A a = new A();
+        B b = new B();
+
+        Ports.connect(a).and(b);
+
+        Ports.domain("a", DispatchPolicy.PARALLEL, SyncPolicy.NONE)
+                .addInstances(a);
+
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicReference<Double> response = new AtomicReference<>();
+        AtomicReference<Thread> callbackThread = new AtomicReference<>();
+
+        b.slowRequest.callF(new SlowRequest(1.0))
+                .whenComplete((r, t) -> {
+                    response.set(r);
+                    callbackThread.set(Thread.currentThread());
+                    latch.countDown();
+                });
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(1.5, response.get());
+        assertNotSame(Thread.currentThread(), callbackThread.get());
+
+        CompletableFuture<Double> chain = b.slowRequest.callF(new SlowRequest(1.0))
+                .toCompletableFuture()
+                .thenCompose(r -> b.doubleRequest.callF(new DoubleRequest(r)).toCompletableFuture());
+
+        assertEquals(2.25, chain.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void timedGet() throws Exception {
+        A a = new A();
+        B b = new B();
+
+        Ports.connect(a).and(b);
+
+        Ports.domain("a", DispatchPolicy.ASYNCHRONOUS, SyncPolicy.NONE)
+                .addInstances(a);
+
+        PortsFuture<Double> future = b.slowRequest.callF(new SlowRequest(1.0));
+
+        long startNanos = System.nanoTime();
+        assertThrows(TimeoutException.class, () -> future.get(50, TimeUnit.MILLISECONDS));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+
+        assertTrue(elapsedMillis >= 50 && elapsedMillis < 400, "elapsed: " + elapsedMillis + " ms");
+        assertFalse(future.isDone());
+        assertNull(future.getNow(null));
+
+        assertEquals(1.5, future.get(5, TimeUnit.SECONDS));
+        assertTrue(future.isDone());
+        assertEquals(1.5, future.getNow(null));
+    }
+
+    @Test
+    public void cancellation() throws Exception {
+        A a = new A();
+        B b = new B();
+
+        Ports.connect(a).and(b);
+
+        Ports.domain("a", DispatchPolicy.ASYNCHRONOUS, SyncPolicy.NONE)
+                .addInstances(a);
+
+        PortsFuture<Double> running = b.slowRequest.callF(new SlowRequest(1.0));
+        PortsFuture<Double> queued = b.slowRequest.callF(new SlowRequest(2.0));
+
+        // Lets the worker thread take the first request from the queue.
+        Thread.sleep(100);
+
+        assertTrue(queued.cancel(false));
+        assertFalse(queued.cancel(false));
+        assertTrue(queued.isCancelled());
+        assertTrue(queued.isDone());
+        assertThrows(CancellationException.class, queued::get);
+
+        assertTrue(running.cancel(true));
+        assertTrue(running.isCancelled());
+        assertThrows(CancellationException.class, running::get);
+
+        long startNanos = System.nanoTime();
+        PortsFuture<Double> next = b.slowRequest.callF(new SlowRequest(3.0));
+
+        // The interrupted handler returns right away and the queued one is skipped.
+        assertEquals(4.5, next.get());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos) < 900);
+
+        assertFalse(next.cancel(true));
+        assertFalse(next.isCancelled());
+    }
+
+    static class Relay {
+
+        final CountDownLatch nestedRequestDone = new CountDownLatch(1);
+        final AtomicReference<Throwable> nestedFailure = new AtomicReference<>();
+
+        @Out
+        Request<SlowRequest, Double> slowRequest;
+
+        @In
+        private Double onDoubleRequest(DoubleRequest request) {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+
+            try {
+                slowRequest.call(new SlowRequest(request.getData()));
+            } catch (PortsExecutionException e) {
+                nestedFailure.set(e.getCause());
+            }
+
+            nestedRequestDone.countDown();
+
+            return request.getData();
+        }
+    }
+
+    @Test
+    public void deadlines() throws Exception {
+        A a = new A();
+        B b = new B();
+        Relay relay = new Relay();
+
+        Ports.connect(b).and(relay);
+        Ports.connect(relay).and(a);
+
+        Ports.domain("relay", DispatchPolicy.ASYNCHRONOUS, SyncPolicy.NONE)
+                .addInstances(relay);
+
+        long startNanos = System.nanoTime();
+
+        PortsExecutionException e = assertThrows(PortsExecutionException.class,
+                () -> b.doubleRequest.call(new DoubleRequest(1.0), 100, TimeUnit.MILLISECONDS));
+
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+
+        assertTrue(e.getCause() instanceof TimeoutException);
+        assertTrue(elapsedMillis >= 100 && elapsedMillis < 400, "elapsed: " + elapsedMillis + " ms");
+
+        // The handler still runs, but the nested request inherits the deadline and fails fast.
+        assertTrue(relay.nestedRequestDone.await(5, TimeUnit.SECONDS));
+        assertTrue(relay.nestedFailure.get() instanceof TimeoutException);
+
+        PortsFuture<Double> future = Ports.withDeadline(50, TimeUnit.MILLISECONDS,
+                () -> b.doubleRequest.callF(new DoubleRequest(2.0)));
+
+        assertThrows(PortsExecutionException.class, future::get);
+        assertEquals(3.0, b.doubleRequest.call(new DoubleRequest(3.0), 5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void batchHandler() {
+        BatchReceiver receiver = new BatchReceiver();
+        B b = new B();
+
+        Ports.connect(b).and(receiver);
+
+        // Synchronous domain, so every request is a batch of its own.
+        assertEquals(3.0, b.doubleRequest.call(new DoubleRequest(2.0)));
+        assertEquals(Arrays.asList(1), receiver.batchSizes);
+
+        receiver.batchSizes.clear();
+
+        Domain domain = Ports.domain("batch", DispatchPolicy.ASYNCHRONOUS, SyncPolicy.COMPONENT)
+                .addInstances(receiver);
+
+        // The domain is idle, so the request is handled right away.
+        assertEquals(3.0, b.doubleRequest.call(new DoubleRequest(2.0)));
+        assertEquals(Arrays.asList(1), receiver.batchSizes);
+
+        receiver.batchSizes.clear();
+
+        // The requests queue up while the worker is busy and are then drained in batches.
+        PortsFuture<Double> slowFuture = occupyWorker(domain);
+        Fork<Double> fork = b.doubleRequest.fork(25, DoubleRequest::new);
+        List<Double> results = fork.get();
+
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(1.5 * i, results.get(i));
+        }
+
+        assertEquals(Arrays.asList(10, 10, 5), receiver.batchSizes);
+        assertEquals(0.0, slowFuture.get());
+
+        // A failure of the handler affects all requests of the batch.
+        occupyWorker(domain);
+        PortsFuture<Double> okFuture = b.doubleRequest.callF(new DoubleRequest(1.0));
+        PortsFuture<Double> failingFuture = b.doubleRequest.callF(new DoubleRequest(-1.0));
+
+        assertThrows(PortsExecutionException.class, okFuture::get);
+        assertThrows(PortsExecutionException.class, failingFuture::get);
+
+        // Cancelled and expired requests are left out of their batch, the other requests are not affected.
+        occupyWorker(domain);
+        PortsFuture<Double> cancelledFuture = b.doubleRequest.callF(new DoubleRequest(3.0));
+        PortsFuture<Double> expiringFuture = Ports.withDeadline(50, TimeUnit.MILLISECONDS,
+                () -> b.doubleRequest.callF(new DoubleRequest(5.0)));
+        PortsFuture<Double> otherFuture = b.doubleRequest.callF(new DoubleRequest(4.0));
+
+        assertTrue(cancelledFuture.cancel(false));
+        assertThrows(CancellationException.class, cancelledFuture::get);
+
+        PortsExecutionException e = assertThrows(PortsExecutionException.class, expiringFuture::get);
+        assertTrue(e.getCause() instanceof TimeoutException);
+
+        receiver.batchSizes.clear();
+
+        assertEquals(6.0, otherFuture.get());
+        assertEquals(Arrays.asList(1), receiver.batchSizes);
+    }
+
+    @Test
+    public void batchRequestsAreSubjectToTheRejectionPolicy() {
+        BatchReceiver receiver = new BatchReceiver();
+        B b = new B();
+
+        Ports.connect(b).and(receiver);
+
+        Domain domain = Ports.domain("batch")
+                .dispatchPolicy(DispatchPolicy.ASYNCHRONOUS)
+                .maxQueueDepth(2)
+                .rejectionPolicy(RejectionPolicy.FAIL_FAST)
+                .build()
+                .addInstances(receiver);
+
+        occupyWorker(domain);
+
+        try {
+            // Lets the worker thread take the slow request from the queue.
+            Thread.sleep(100);
+        } catch (InterruptedException e) {
+            fail(e);
+        }
+
+        PortsFuture<Double> firstFuture = b.doubleRequest.callF(new DoubleRequest(1.0));
+        PortsFuture<Double> secondFuture = b.doubleRequest.callF(new DoubleRequest(2.0));
+        PortsFuture<Double> rejectedFuture = b.doubleRequest.callF(new DoubleRequest(3.0));
+
+        PortsExecutionException e = assertThrows(PortsExecutionException.class, rejectedFuture::get);
+        assertEquals(TaskRejectedException.class, e.getCause().getClass());
+
+        assertEquals(1.5, firstFuture.get());
+        assertEquals(3.0, secondFuture.get());
+        assertEquals(Arrays.asList(2), receiver.batchSizes);
+    }
+
+    @Test
+    public void batchEventHandler() {
+        BatchReceiver receiver = new BatchReceiver();
+        A a = new A();
+
+        Ports.connect(a).and(receiver);
+
+        // Synchronous domain, so every event is a batch of its own.
+        a.intEvent.trigger(new IntEvent(-1));
+        assertEquals(Arrays.asList(1), receiver.eventBatchSizes);
+
+        receiver.eventBatchSizes.clear();
+        receiver.eventData.clear();
+
+        Domain domain = Ports.domain("batch-events", DispatchPolicy.ASYNCHRONOUS, SyncPolicy.COMPONENT)
+                .addInstances(receiver);
+
+        occupyWorker(domain);
+
+        List<Integer> expectedData = new ArrayList<>();
+
+        for (int i = 0; i < 25; i++) {
+            a.intEvent.trigger(new IntEvent(i));
+            expectedData.add(i);
+        }
+
+        Ports.awaitQuiescence();
+
+        assertEquals(Arrays.asList(10, 10, 5), receiver.eventBatchSizes);
+        assertEquals(expectedData, receiver.eventData);
+    }
+
+    static class IntEventRelay {
+
+        @Out
+        Event<IntEvent> intEvent;
+
+        @In
+        private Double onDoubleRequest(DoubleRequest request) {
+            intEvent.trigger(new IntEvent(request.getData().intValue()));
+            return request.getData();
+        }
+    }
+
+    @Test
+    public void batchEventsFromTheReceiverDomainKeepTheirOrder() {
+        BatchReceiver receiver = new BatchReceiver();
+        IntEventRelay relay = new IntEventRelay();
+        A a = new A();
+        B b = new B();
+
+        Ports.connect(a).and(receiver);
+        Ports.connectDirected(b, relay, PortsOptions.DEFAULT);
+        Ports.connectDirected(relay, receiver, PortsOptions.DEFAULT);
+
+        Domain domain = Ports.domain("batch-events", DispatchPolicy.ASYNCHRONOUS, SyncPolicy.COMPONENT)
+                .addInstances(receiver, relay);
+
+        occupyWorker(domain);
+
+        for (int i = 0; i < 5; i++) {
+            a.intEvent.trigger(new IntEvent(i));
+        }
+
+        // The relay triggers its event within the receiver's domain, after the queued events have been handled.
+        assertEquals(5.0, b.doubleRequest.call(new DoubleRequest(5.0)));
+
+        Ports.awaitQuiescence();
+
+        assertEquals(Arrays.asList(5, 1), receiver.eventBatchSizes);
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5), receiver.eventData);
+    }
+
+    /**
+     * Keeps the worker thread of the provided domain busy for half a second, so that the messages to the domain
+     * queue up in the meantime.
+     */
+    private static PortsFuture<Double> occupyWorker(Domain domain) {
+        A a = new A();
+        B b = new B();
+
+        Ports.connect(b).and(a);
+        domain.addInstances(a);
+
+        return b.slowRequest.callF(new SlowRequest(0.0));
+    }
+
+    @Test
+    public void domainBuilderFailFast() {
+        PortsFuture<Double>[] futures = callSlowRequestsOnFullQueue(RejectionPolicy.FAIL_FAST);
+
+        assertEquals(0.0, futures[0].get());
+        assertEquals(1.5, futures[1].get());
+
+        PortsExecutionException e = assertThrows(PortsExecutionException.class, futures[2]::get);
+        assertEquals(TaskRejectedException.class, e.getCause().getClass());
+    }
+
+    @Test
+    public void domainBuilderDropOldest() {
+        PortsFuture<Double>[] futures = callSlowRequestsOnFullQueue(RejectionPolicy.DROP_OLDEST);
+
+        assertEquals(0.0, futures[0].get());
+        assertEquals(3.0, futures[2].get());
+
+        PortsExecutionException e = assertThrows(PortsExecutionException.class, futures[1]::get);
+        assertEquals(TaskRejectedException.class, e.getCause().getClass());
+    }
+
+    @Test
+    public void domainBuilderCallerRuns() {
+        PortsFuture<Double>[] futures = callSlowRequestsOnFullQueue(RejectionPolicy.CALLER_RUNS);
+
+        assertTrue(futures[2].isDone());
+        assertEquals(3.0, futures[2].get());
+        assertEquals(0.0, futures[0].get());
+        assertEquals(1.5, futures[1].get());
+    }
+
+    @SuppressWarnings("unchecked")
+    private PortsFuture<Double>[] callSlowRequestsOnFullQueue(RejectionPolicy rejectionPolicy) {
+        A a = new A();
+        B b = new B();
+
+        Ports.connect(a).and(b);
+
+        Ports.domain("a")
+                .dispatchPolicy(DispatchPolicy.ASYNCHRONOUS)
+                .maxQueueDepth(1)
+                .rejectionPolicy(rejectionPolicy)
+                .build()
+                .addInstances(a);
+
+        PortsFuture<Double>[] futures = new PortsFuture[3];
+
+        futures[0] = b.slowRequest.callF(new SlowRequest(0.0));
+
+        try {
+            // Lets the worker thread take the first request from the queue.
+            Thread.sleep(100);
+        } catch (InterruptedException e) {
+            fail(e);
+        }
+
+        futures[1] = b.slowRequest.callF(new SlowRequest(1.0));
+        futures[2] = b.slowRequest.callF(new SlowRequest(2.0));
+
+        return futures;
+    }
+
+    @Test
+    public void domainBuilderInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> Ports.domain("a").maxThreads(4).build());
+        assertThrows(IllegalArgumentException.class, () -> Ports.domain("a").maxQueueDepth(4).build());
+
+        assertThrows(IllegalArgumentException.class, () -> Ports.domain("a")
+                .dispatchPolicy(DispatchPolicy.PARALLEL)
+                .coreThreads(4)
+                .maxThreads(2)
+                .build());
+    }
+
     @Test
     public void portsEventException() {
         A a = new A();
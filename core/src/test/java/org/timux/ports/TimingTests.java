@@ -8,8 +8,13 @@ import org.timux.ports.types.Either3;
 import org.timux.ports.types.Nothing;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -53,6 +58,33 @@ public class TimingTests {
         }
     }
 
+    @Test
+    public void forkGetWorkStealing() {
+        A a = new A();
+        B b = new B();
+
+        Ports.connect(a).and(b);
+
+        Ports.domain("test-a", DispatchPolicy.PARALLEL, SyncPolicy.NONE, QueuePolicy.WORK_STEALING)
+                .addClasses(A.class);
+
+        List<Either<Double, Throwable>> results = assertTimeout(Duration.ofMillis(1100), () -> {
+            Fork<Double> fork = b.slowRequest.fork(10, SlowRequest::new);
+            return fork.getEither();
+        });
+
+        assertEquals(10, results.size());
+
+        for (int i = 0; i < results.size(); i++) {
+            int finalI = i;
+
+            results.get(i).on(
+                    value -> assertEquals(finalI * 1.5, value),
+                    throwable -> fail("index " + finalI + ": request should not fail: ", throwable)
+            );
+        }
+    }
+
     @Test
     public void forkGetNow() {
         A a = new A();
@@ -123,6 +155,121 @@ public class TimingTests {
         }
     }
 
+    @Test
+    public void forkSharedDeadline() {
+        A a = new A();
+        B b = new B();
+
+        Ports.connect(a).and(b);
+
+        Ports.domain("test-a", DispatchPolicy.PARALLEL, SyncPolicy.NONE)
+                .addInstances(a);
+
+        // The first five requests take 500 ms, the other ones 1000 ms.
+        List<Either3<Double, Nothing, Throwable>> results = assertTimeout(Duration.ofMillis(900), () -> {
+            Fork<Double> fork = b.slowRequest.fork(10, SlowRequest::new);
+            return fork.getEither(700, TimeUnit.MILLISECONDS);
+        });
+
+        assertEquals(10, results.size());
+
+        for (int i = 0; i < results.size(); i++) {
+            int finalI = i;
+
+            results.get(i).on(
+                    value -> assertTrue(finalI < 5, "index " + finalI),
+                    nothing -> assertTrue(finalI >= 5, "index " + finalI),
+                    throwable -> fail("index " + finalI + ": request should not fail: ", throwable)
+            );
+        }
+    }
+
+    @Test
+    public void forkCompletionOrder() throws Exception {
+        A a = new A();
+        B b = new B();
+
+        Ports.connect(a).and(b);
+
+        Ports.domain("test-a", DispatchPolicy.PARALLEL, SyncPolicy.NONE)
+                .addInstances(a);
+
+        Fork<Double> fork = b.slowRequest.fork(10, i -> new SlowRequest(9 - i));
+
+        List<Double> results = fork.completionStream()
+                .map(PortsFuture::get)
+                .collect(Collectors.toList());
+
+        assertEquals(10, results.size());
+
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i < 5, results.get(i) < 7.5, "index " + i + ": " + results.get(i));
+        }
+
+        Fork<Double> secondFork = b.slowRequest.fork(10, SlowRequest::new);
+
+        List<Double> firstResults = assertTimeout(Duration.ofMillis(900), () -> {
+            List<Double> list = new ArrayList<>();
+            secondFork.completionIterator(700, TimeUnit.MILLISECONDS).forEachRemaining(future -> list.add(future.get()));
+            return list;
+        });
+
+        assertEquals(5, firstResults.size());
+        assertEquals(67.5, secondFork.fold(0.0, Double::sum));
+        assertEquals(67.5, secondFork.reduce(Double::sum).orElse(0.0));
+    }
+
+    @Test
+    public void forkGetFirst() throws Exception {
+        A a = new A();
+        B b = new B();
+
+        Ports.connect(a).and(b);
+
+        Ports.domain("test-a", DispatchPolicy.PARALLEL, SyncPolicy.NONE)
+                .addInstances(a);
+
+        Fork<Double> fork = b.slowRequest.fork(10, i -> new SlowRequest(9 - i));
+
+        double any = assertTimeout(Duration.ofMillis(800), () -> fork.getAny());
+        assertTrue(any < 7.5, "response: " + any);
+
+        List<Double> firstResults = assertTimeout(Duration.ofMillis(800), () -> fork.getFirst(5));
+        assertEquals(5, firstResults.size());
+        firstResults.forEach(response -> assertTrue(response < 7.5, "response: " + response));
+
+        assertThrows(TimeoutException.class, () -> fork.getFirst(10, 100, TimeUnit.MILLISECONDS));
+        assertEquals(10, fork.getFirst(10, 2, TimeUnit.SECONDS).size());
+        assertThrows(IllegalArgumentException.class, () -> fork.getFirst(11));
+    }
+
+    @Test
+    public void forkChunked() throws Exception {
+        A a = new A();
+        B b = new B();
+
+        Ports.connect(a).and(b);
+
+        Ports.domain("test-a", DispatchPolicy.PARALLEL, SyncPolicy.NONE)
+                .addInstances(a);
+
+        ChunkedFork<Double> fork = b.doubleRequest.forkChunked(100_000, DoubleRequest::new);
+        List<Double> results = fork.get();
+
+        assertEquals(40, fork.getNumberOfChunks());
+        assertEquals(100_000, results.size());
+
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(1.5 * i, results.get(i));
+        }
+
+        ChunkedFork<Double> slowFork = b.slowRequest.forkChunked(10, 5, SlowRequest::new);
+
+        assertEquals(2, slowFork.getNumberOfChunks());
+        assertThrows(TimeoutException.class, () -> slowFork.get(1, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(0.0, 1.5, 3.0, 4.5, 6.0, 7.5, 9.0, 10.5, 12.0, 13.5), slowFork.get(5, TimeUnit.SECONDS));
+    }
+
     @Test
     public void threadIdleLifetime() {
         A a = new A();